@@ -0,0 +1,155 @@
+package componentLibrary;
+
+/**
+ * square set operations on bitboards, a square id n of the board
+ * is stored as bit (n & 63) of word (n >> 6)
+ */
+public final class Bitboard {
+
+	private Bitboard() {
+	}
+
+
+
+	/**
+	 * @param squares - number of squares on the board
+	 * @return number of long words needed to hold one bit per square
+	 */
+	public static int words(int squares) {
+		return (squares + 63) >>> 6;
+	}
+
+
+
+	/**
+	 * @param b
+	 * @param sq
+	 *
+	 * adds square sq to set b
+	 */
+	public static void set(long[] b, int sq) {
+		b[sq >> 6] |= 1L << sq;
+	}
+
+
+
+	/**
+	 * @param b
+	 * @param sq
+	 *
+	 * removes square sq from set b
+	 */
+	public static void clear(long[] b, int sq) {
+		b[sq >> 6] &= ~(1L << sq);
+	}
+
+
+
+	/**
+	 * @param b
+	 * @param sq
+	 * @param on
+	 *
+	 * adds or removes square sq depending on on
+	 */
+	public static void assign(long[] b, int sq, boolean on) {
+		if (on) {
+			set(b, sq);
+		} else {
+			clear(b, sq);
+		}
+	}
+
+
+
+	/**
+	 * @param b
+	 * @param sq
+	 * @return true if square sq is in set b
+	 */
+	public static boolean test(long[] b, int sq) {
+		return (b[sq >> 6] & (1L << sq)) != 0;
+	}
+
+
+
+	/**
+	 * @param b
+	 *
+	 * removes every square from set b
+	 */
+	public static void clearAll(long[] b) {
+		for (int i = 0; i < b.length; i++) {
+			b[i] = 0;
+		}
+	}
+
+
+
+	/**
+	 * @param b
+	 * @return number of squares in set b
+	 */
+	public static int count(long[] b) {
+		int c = 0;
+		for (int i = 0; i < b.length; i++) {
+			c += Long.bitCount(b[i]);
+		}
+		return c;
+	}
+
+
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return true if sets a and b share at least one square
+	 */
+	public static boolean intersects(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if ((a[i] & b[i]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return number of squares present in both a and b
+	 */
+	public static int countAnd(long[] a, long[] b) {
+		int c = 0;
+		for (int i = 0; i < a.length; i++) {
+			c += Long.bitCount(a[i] & b[i]);
+		}
+		return c;
+	}
+
+
+
+	/**
+	 * @param b
+	 * @param from
+	 * @return the smallest square >= from in set b, -1 if none
+	 */
+	public static int next(long[] b, int from) {
+		int w = from >> 6;
+		if (w >= b.length) {
+			return -1;
+		}
+		long word = b[w] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				return (w << 6) + Long.numberOfTrailingZeros(word);
+			}
+			if (++w == b.length) {
+				return -1;
+			}
+			word = b[w];
+		}
+	}
+}
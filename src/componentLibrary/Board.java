@@ -4,6 +4,7 @@ import gameEngine.Data;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * @author Nemo Li
@@ -11,15 +12,51 @@ import java.util.ArrayList;
  */
 public class Board {
 
+	private static final int UNDO_CAPACITY = 1024;
+
 	private int dim;
+	private int squares;
 	private int pCount;
-	private int[][] terrain;
-	private Piece[][] pGrid;		// using both array and list to store pieces is convenient to lookup
-	private ArrayList<Piece> pList;	// and insert, and facilitate use by other functions
+	private Piece[] pGrid;			// using both array and list to store pieces is convenient to lookup
+	private Piece[] pList;			// and insert, and facilitate use by other functions
 	
-	private Castle[][] cGrid;
+	private Castle[] cGrid;
 	private ArrayList<Castle> cList;
 	
+	private long[] mountain;		// terrain type 2, castles are stored as such
+	private long[] wetland;			// terrain type 1, castle greens are stored as such
+	private long[] castles;
+	private long[] greens;
+	private long[][] occupied;		// indexed by player, one set for A and one for B
+	private boolean attackStale;	// some piece needs its paths sketched again
+	
+	private int sideToMove;
+	private Zobrist zobrist;
+	private long hash;				// zobrist key of the position, kept up to date by every change
+	private long terrainHash;		// zobrist key of the terrain and castles alone
+	private int[] royalCount;		// indexed by player
+	private boolean royalCountValid;
+	
+	// evaluation terms indexed by player, kept up to date by every change
+	private int[][] typeCount;		// pieces of each type
+	private int[][] attackers;		// pieces able to take on each position, by sketched paths
+	private int[] mobility;			// reachable and ranged positions over all pieces
+	private int[] attackedRoyals;	// royal pieces on a position the enemy attacks
+	private int[] castleDistance;	// moves from non-royal pieces to the enemy castle green
+	private boolean castleDistanceValid;
+	private DistanceFields distances;	// fields of the terrain the castle distances were counted on
+	
+	private int undoSize;			// undo stack of makeMove, one entry per move
+	private int[] undoMove;
+	private Piece[] undoMover;
+	private int[] undoMoveCount;
+	private Piece[] undoCaptured;
+	private int[] undoSlot;
+	private int[] undoResetFrom;
+	private int resetSize;			// move counts cleared by ending a turn
+	private Piece[] resetPiece;
+	private int[] resetCount;
+	
 	
 	
 	/**
@@ -27,12 +64,63 @@ public class Board {
 	 */
 	public Board(int d) {
 		dim = d;
+		squares = dim * dim;
 		pCount = 0;
-		pGrid = new Piece[dim][dim];
-		pList = new ArrayList<Piece>(0);
-		cGrid = new Castle[dim][dim];
+		pGrid = new Piece[squares];
+		pList = new Piece[2 * Data.PIECE_COUNT];
+		cGrid = new Castle[squares];
 		cList = new ArrayList<Castle>(0);
-		terrain = new int[dim][dim];
+		
+		int words = Bitboard.words(squares);
+		mountain = new long[words];
+		wetland = new long[words];
+		castles = new long[words];
+		greens = new long[words];
+		occupied = new long[Data.PLAYER_B + 1][words];
+		
+		sideToMove = Data.PLAYER_A;
+		zobrist = Zobrist.forDimension(dim);
+		hash = 0;
+		royalCount = new int[Data.PLAYER_B + 1];
+		
+		typeCount = new int[Data.PLAYER_B + 1][Data.PIECE_TYPES];
+		attackers = new int[Data.PLAYER_B + 1][squares];
+		mobility = new int[Data.PLAYER_B + 1];
+		attackedRoyals = new int[Data.PLAYER_B + 1];
+		castleDistance = new int[Data.PLAYER_B + 1];
+		
+		undoMove = new int[UNDO_CAPACITY];
+		undoMover = new Piece[UNDO_CAPACITY];
+		undoMoveCount = new int[UNDO_CAPACITY];
+		undoCaptured = new Piece[UNDO_CAPACITY];
+		undoSlot = new int[UNDO_CAPACITY];
+		undoResetFrom = new int[UNDO_CAPACITY];
+		resetPiece = new Piece[UNDO_CAPACITY];
+		resetCount = new int[UNDO_CAPACITY];
+	}
+	
+	
+	
+	/**
+	 * @param other - board to copy
+	 * 
+	 * generates a board with the same terrain, castles, pieces, move
+	 * counts and side to move as other, sharing no state with it
+	 */
+	public Board(Board other) {
+		this(other.dim);
+		for (int i = 0; i < other.cList.size(); i++) {
+			Castle c = other.cList.get(i);
+			new Castle(c.getId(), c.getPlayer(), c.getEntrance(), this);
+		}
+		for (int i = 0; i < squares; i++) {
+			setTerrain(i, other.getTerrain(i));
+		}
+		for (int i = 0; i < other.pCount; i++) {
+			Piece p = other.pList[i];
+			setMoveCount(Piece.create(p.getType(), p.getId(), p.getPlayer(), this), p.getMoveCount());
+		}
+		setSideToMove(other.sideToMove);
 	}
 	
 	
@@ -42,16 +130,30 @@ public class Board {
 	 * @param x
 	 * @param y
 	 * 
-	 * simple add piece p to (x,y) and updates
-	 * attack paths on board
+	 * simple add piece p to (x,y) and marks
+	 * affected attack paths on board
 	 */
 	public void add(Piece p, int x, int y){
-		pGrid[x][y] = p;
-		pList.add(p);
-		pCount++;
+		int id = x + dim * y;
+		pGrid[id] = p;
+		placeRoyal(p, id, 1);
+		Bitboard.set(occupied[p.getPlayer()], id);
+		if (pCount == pList.length) {
+			pList = Arrays.copyOf(pList, 2 * pCount);
+		}
+		p.slot = pCount;
+		pList[pCount++] = p;
+		hash ^= zobrist.piece(p.getType(), p.getPlayer(), id);
+		royalCountValid = false;	// royalty is only known once the piece is constructed
+		typeCount[p.getPlayer()][p.getType()]++;
+		if (castleDistanceValid) {
+			castleDistance[p.getPlayer()] += castleDistance(p, id);
+		}
 		
 		p.setCords(x, y);
-		updateAttack();
+		p.markStale();
+		attackStale = true;
+		touch(id);
 	}
 	
 	
@@ -61,16 +163,22 @@ public class Board {
 	 * @param y
 	 * @param entrance - direction code for castle green
 	 * 
-	 * adds a castle to the board and updates attack paths
+	 * adds a castle to the board and marks affected attack paths
 	 */
 	public void add(Castle c, int x, int y, int entrance){
 		Point green = c.getEntrancePoint();
-		setTerrain(green.x, green.y);
+		setTerrain(green.x, green.y, 1);
 		setTerrain(x, y, 2);
-		cGrid[x][y] = c;
+		Bitboard.set(greens, green.x + dim * green.y);
+		Bitboard.set(castles, x + dim * y);
+		hash ^= zobrist.castle(c.getPlayer(), x + dim * y);
+		terrainHash ^= zobrist.castle(c.getPlayer(), x + dim * y);
+		castleDistanceValid = false;
+		cGrid[x + dim * y] = c;
 		cList.add(c);
 		c.setCords(x, y);
-		updateAttack();
+		touch(x + dim * y);
+		touch(green.x + dim * green.y);
 	}
 	
 	
@@ -89,8 +197,7 @@ public class Board {
 		} else {
 			moveAttack(attacker, target);
 		}
-		updateAttack();
-		src.setMoveCount(src.getMoveCount() + 1);
+		setMoveCount(src, src.getMoveCount() + 1);
 	}
 	
 	
@@ -102,13 +209,7 @@ public class Board {
 	 * carries out move attack operation
 	 */
 	public void moveAttack(int attacker, int target) {
-		Piece t = getPieceAt(target);
-		int tX = t.getX();
-		int tY = t.getY();
-
-		pGrid[tX][tY] = null;
-		pList.remove(t);
-		pCount--;
+		removePiece(getPieceAt(target));
 		freeMovePiece(attacker, target);
 	}
 	
@@ -121,14 +222,304 @@ public class Board {
 	 * carries out range attack operation
 	 */
 	public void rangedAttack(int attacker, int target) {
-		Piece t = getPieceAt(target);
-		int tX = t.getX();
-		int tY = t.getY();
-
-		pGrid[tX][tY] = null;
-		pList.remove(t);
-		pCount--;
-	}	
+		removePiece(getPieceAt(target));
+	}
+	
+	
+	
+	/**
+	 * @param t - piece to be taken off the board
+	 * 
+	 * removes t from the grid and piece list by moving the
+	 * last piece of the list into its slot
+	 */
+	private void removePiece(Piece t) {
+		int tId = t.getId();
+		
+		placeRoyal(t, tId, -1);
+		pGrid[tId] = null;
+		Bitboard.clear(occupied[t.getPlayer()], tId);
+		Piece last = pList[--pCount];
+		pList[t.slot] = last;
+		last.slot = t.slot;
+		pList[pCount] = null;
+		hash ^= pieceKey(t, tId);
+		if (royalCountValid && t.isRoyal()) {
+			royalCount[t.getPlayer()]--;
+		}
+		typeCount[t.getPlayer()][t.getType()]--;
+		if (castleDistanceValid) {
+			castleDistance[t.getPlayer()] -= castleDistance(t, tId);
+		}
+		unpublish(t);
+		touch(tId);
+	}
+	
+	
+	
+	/**
+	 * @param t	   - piece removed by removePiece
+	 * @param slot - the slot t had in the piece list
+	 * 
+	 * puts t back on its position, the exact inverse of removePiece
+	 */
+	private void restorePiece(Piece t, int slot) {
+		int tId = t.getId();
+		
+		if (slot < pCount) {
+			Piece moved = pList[slot];
+			pList[pCount] = moved;
+			moved.slot = pCount;
+		}
+		pCount++;
+		pList[slot] = t;
+		t.slot = slot;
+		pGrid[tId] = t;
+		placeRoyal(t, tId, 1);
+		Bitboard.set(occupied[t.getPlayer()], tId);
+		hash ^= pieceKey(t, tId);
+		if (royalCountValid && t.isRoyal()) {
+			royalCount[t.getPlayer()]++;
+		}
+		typeCount[t.getPlayer()][t.getType()]++;
+		if (castleDistanceValid) {
+			castleDistance[t.getPlayer()] += castleDistance(t, tId);
+		}
+		publish(t);
+		touch(tId);
+	}
+	
+	
+	
+	/**
+	 * @param move - a legal move packed by Move, or Move.END_TURN
+	 * 
+	 * carries out move and records what is needed to take it back
+	 * with unmakeMove, legality is not checked
+	 */
+	public void makeMove(int move) {
+		if (undoSize == undoMove.length) {
+			growUndo();
+		}
+		int u = undoSize++;
+		undoMove[u] = move;
+		
+		if (Move.isEndTurn(move)) {
+			undoResetFrom[u] = resetSize;
+			for (int i = 0; i < pCount; i++) {
+				Piece p = pList[i];
+				if (p.getMoveCount() != 0) {
+					if (resetSize == resetPiece.length) {
+						resetPiece = Arrays.copyOf(resetPiece, 2 * resetSize);
+						resetCount = Arrays.copyOf(resetCount, 2 * resetSize);
+					}
+					resetPiece[resetSize] = p;
+					resetCount[resetSize++] = p.getMoveCount();
+					setMoveCount(p, 0);
+				}
+			}
+			toggleSide();
+			return;
+		}
+		
+		int src = Move.source(move);
+		int dest = Move.destination(move);
+		Piece p = pGrid[src];
+		undoMover[u] = p;
+		undoMoveCount[u] = p.getMoveCount();
+		undoCaptured[u] = null;
+		
+		if (Move.isCapture(move)) {
+			Piece t = pGrid[dest];
+			undoCaptured[u] = t;
+			undoSlot[u] = t.slot;
+			removePiece(t);
+		}
+		if (!Move.isRanged(move)) {
+			relocate(p, src, dest);
+		}
+		setMoveCount(p, p.getMoveCount() + 1);
+	}
+	
+	
+	
+	/**
+	 * takes back the last move made by makeMove
+	 */
+	public void unmakeMove() {
+		int u = --undoSize;
+		int move = undoMove[u];
+		
+		if (Move.isEndTurn(move)) {
+			toggleSide();
+			while (resetSize > undoResetFrom[u]) {
+				resetSize--;
+				setMoveCount(resetPiece[resetSize], resetCount[resetSize]);
+				resetPiece[resetSize] = null;
+			}
+			return;
+		}
+		
+		Piece p = undoMover[u];
+		if (!Move.isRanged(move)) {
+			relocate(p, Move.destination(move), Move.source(move));
+		}
+		if (undoCaptured[u] != null) {
+			restorePiece(undoCaptured[u], undoSlot[u]);
+			undoCaptured[u] = null;
+		}
+		setMoveCount(p, undoMoveCount[u]);
+		undoMover[u] = null;
+	}
+	
+	
+	
+	/**
+	 * doubles the capacity of the undo stack
+	 */
+	private void growUndo() {
+		int size = 2 * undoMove.length;
+		undoMove = Arrays.copyOf(undoMove, size);
+		undoMover = Arrays.copyOf(undoMover, size);
+		undoMoveCount = Arrays.copyOf(undoMoveCount, size);
+		undoCaptured = Arrays.copyOf(undoCaptured, size);
+		undoSlot = Arrays.copyOf(undoSlot, size);
+		undoResetFrom = Arrays.copyOf(undoResetFrom, size);
+	}
+	
+	
+	
+	/**
+	 * @return number of moves that could be taken back
+	 */
+	public int getUndoSize() {
+		return undoSize;
+	}
+	
+	
+	
+	/**
+	 * @return the player to move
+	 */
+	public int getSideToMove() {
+		return sideToMove;
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * 
+	 * sets the player to move
+	 */
+	public void setSideToMove(int player) {
+		if (sideToMove != player) {
+			toggleSide();
+		}
+	}
+	
+	
+	
+	/**
+	 * passes the move to the other player
+	 */
+	private void toggleSide() {
+		sideToMove = Data.PLAYER_A + Data.PLAYER_B - sideToMove;
+		hash ^= zobrist.side();
+	}
+	
+	
+	
+	/**
+	 * @return zobrist key of the position, covering pieces, pieces moved
+	 * 			this turn, terrain, castles and the side to move
+	 */
+	public long getHash() {
+		return hash;
+	}
+	
+	
+	
+	/**
+	 * @param p
+	 * @param id
+	 * @return key of p standing on id, including whether p has moved
+	 */
+	private long pieceKey(Piece p, int id) {
+		long key = zobrist.piece(p.getType(), p.getPlayer(), id);
+		if (p.getMoveCount() > 0) {
+			key ^= zobrist.moved(id);
+		}
+		return key;
+	}
+	
+	
+	
+	/**
+	 * @param p
+	 * @param count
+	 * 
+	 * sets the move count of p, keeping the moved key in the hash
+	 */
+	private void setMoveCount(Piece p, int count) {
+		if ((p.getMoveCount() > 0) != (count > 0)) {
+			hash ^= zobrist.moved(p.getId());
+		}
+		p.setMoveCount(count);
+	}
+	
+	
+	
+	/**
+	 * ends the turn of the player to move, all pieces could move again
+	 */
+	public void endTurn() {
+		resetMoveCount();
+		toggleSide();
+	}
+	
+	
+	
+	/**
+	 * @return the player who has won, either by taking all enemy
+	 * 			royal pieces or by entering the enemy castle,
+	 * 			PLAYER_NONE if the game goes on
+	 */
+	public int getWinner() {
+		if (getRoyalCount(Data.PLAYER_A) == 0) {
+			return Data.PLAYER_B;
+		} else if (getRoyalCount(Data.PLAYER_B) == 0) {
+			return Data.PLAYER_A;
+		}
+		for (int i = 0; i < cList.size(); i++) {
+			Castle c = cList.get(i);
+			Piece p = pGrid[c.getId()];
+			if (p != null && p.getPlayer() != c.getPlayer()) {
+				return p.getPlayer();
+			}
+		}
+		return Data.PLAYER_NONE;
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return number of royal pieces player has on board
+	 */
+	public int getRoyalCount(int player) {
+		if (!royalCountValid) {
+			royalCount[Data.PLAYER_A] = 0;
+			royalCount[Data.PLAYER_B] = 0;
+			for (int i = 0; i < pCount; i++) {
+				if (pList[i].isRoyal()) {
+					royalCount[pList[i].getPlayer()]++;
+				}
+			}
+			royalCountValid = true;
+		}
+		return royalCount[player];
+	}
 	
 	
 	/**
@@ -147,6 +538,7 @@ public class Board {
 		int srcY = c.getY();
 		int destX = destination % dim;
 		int destY = (destination - destX) / dim;
+		Point srcGreen = c.getEntrancePoint();
 
 		if (!freeMoveCastleGreen(entrance, srcX, srcY, destX, destY)){
 			return false;
@@ -154,10 +546,21 @@ public class Board {
 		
 		setTerrain(srcX, srcY, 0);
 		setTerrain(destX, destY, 2);
-		cGrid[srcX][srcY] = null;
-		cGrid[destX][destY] = c;
+		Bitboard.clear(castles, c.getId());
+		Bitboard.clear(greens, srcGreen.x + dim * srcGreen.y);
+		hash ^= zobrist.castle(team, c.getId()) ^ zobrist.castle(team, destination);
+		terrainHash ^= zobrist.castle(team, c.getId()) ^ zobrist.castle(team, destination);
+		castleDistanceValid = false;
+		cGrid[c.getId()] = null;
+		cGrid[destination] = c;
 		c.setCords(destX, destY);
-		updateAttack();
+		Point destGreen = c.getEntrancePoint();
+		Bitboard.set(castles, destination);
+		Bitboard.set(greens, destGreen.x + dim * destGreen.y);
+		touch(srcX + dim * srcY);
+		touch(srcGreen.x + dim * srcGreen.y);
+		touch(destination);
+		touch(destGreen.x + dim * destGreen.y);
 		
 		return true;
 	}
@@ -210,19 +613,11 @@ public class Board {
 		if (srcId == destId)
 			return false;
 
-		int srcX = srcId % dim;
-		int srcY = (srcId - srcX) / dim;
-		int destX = destId % dim;
-		int destY = (destId - destX) / dim;
-
-		if (getTerrain(destX, destY) != 0) {
+		if (getTerrain(destId) != 0) {
 			return false;
 		}
 
-		Piece p = pGrid[srcX][srcY];
-		p.setId(destId);
-		pGrid[srcX][srcY] = null;
-		pGrid[destX][destY] = p;
+		relocate(pGrid[srcId], srcId, destId);
 		return true;
 	}
 	
@@ -237,40 +632,88 @@ public class Board {
 		if (srcId == destId)
 			return false;
 
-		int srcX = srcId % dim;
-		int srcY = (srcId - srcX) / dim;
 		int destX = destId % dim;
 		int destY = (destId - destX) / dim;
 
-		Piece p = pGrid[srcX][srcY];
+		Piece p = pGrid[srcId];
 		if (!p.canReach(destX, destY)) {
 			return false;
 		}
 
-		p.setId(destId);
-		pGrid[srcX][srcY] = null;
-		pGrid[destX][destY] = p;
-		updateAttack();
-		p.setMoveCount(p.getMoveCount() + 1);
+		relocate(p, srcId, destId);
+		setMoveCount(p, p.getMoveCount() + 1);
 		return true;
 	}
 	
 	
 	
+	/**
+	 * @param p		 - piece being moved
+	 * @param srcId	 - id p is moved from
+	 * @param destId - id p is moved to
+	 * 
+	 * moves p in the grid and in its player's occupancy set
+	 */
+	private void relocate(Piece p, int srcId, int destId) {
+		long[] own = occupied[p.getPlayer()];
+		hash ^= pieceKey(p, srcId) ^ pieceKey(p, destId);
+		if (castleDistanceValid) {
+			castleDistance[p.getPlayer()] += castleDistance(p, destId) - castleDistance(p, srcId);
+		}
+		p.setId(destId);
+		placeRoyal(p, srcId, -1);
+		pGrid[srcId] = null;
+		pGrid[destId] = p;
+		placeRoyal(p, destId, 1);
+		Bitboard.clear(own, srcId);
+		Bitboard.set(own, destId);
+		touch(srcId);
+		touch(destId);
+	}
+	
+	
+	
 	/**
 	 * @param srcId
 	 * @return true id source is a castle
 	 */
 	public boolean isCastle(int srcId) {
-		if (cList == null) {
+		if (srcId < 0 || srcId >= squares) {
 			return false;
 		}
-		for (int i = 0; i < cList.size(); i++) {
-			if (cList.get(i).getId() == srcId) {
-				return true;
-			}
-		}
-		return false;
+		return Bitboard.test(castles, srcId);
+	}
+	
+	
+	
+	/**
+	 * @param id
+	 * @return true if id is the green of any castle
+	 */
+	public boolean isGreen(int id) {
+		return Bitboard.test(greens, id);
+	}
+	
+	
+	
+	/**
+	 * @param id
+	 * @return true if a piece of either player stands on id
+	 */
+	public boolean isOccupied(int id) {
+		return Bitboard.test(occupied[Data.PLAYER_A], id)
+				|| Bitboard.test(occupied[Data.PLAYER_B], id);
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return the set of squares occupied by player's pieces,
+	 * 			the returned array is live and must not be modified
+	 */
+	public long[] getOccupancy(int player) {
+		return occupied[player];
 	}
 	
 	
@@ -314,7 +757,16 @@ public class Board {
 	 * set terrain at (x,y) to be type
 	 */
 	public void setTerrain(int x, int y, int type){
-		terrain[x][y] = type;
+		int id = x + dim * y;
+		if (getTerrain(id) == type) {
+			return;
+		}
+		touch(id);
+		hash ^= zobrist.terrain(getTerrain(id), id) ^ zobrist.terrain(type, id);
+		terrainHash ^= zobrist.terrain(getTerrain(id), id) ^ zobrist.terrain(type, id);
+		castleDistanceValid = false;
+		Bitboard.assign(mountain, id, type == Data.TERRAIN_MOUNTAIN);
+		Bitboard.assign(wetland, id, type == Data.TERRAIN_WETLAND);
 	}
 	
 	
@@ -324,9 +776,12 @@ public class Board {
 	 * @return the terrain type at id
 	 */
 	public int getTerrain(int id){
-		int cordX = id % dim;
-		int cordY = (id - cordX) / dim;
-		return getTerrain(cordX, cordY);
+		if (Bitboard.test(mountain, id)) {
+			return Data.TERRAIN_MOUNTAIN;
+		} else if (Bitboard.test(wetland, id)) {
+			return Data.TERRAIN_WETLAND;
+		}
+		return Data.TERRAIN_DEFAULT;
 	}
 	
 	
@@ -337,7 +792,7 @@ public class Board {
 	 * @return the terrain type at (x,y)
 	 */
 	public int getTerrain(int x, int y){
-		return terrain[x][y];
+		return getTerrain(x + dim * y);
 	}
 	
 	
@@ -381,7 +836,7 @@ public class Board {
 			return null;
 		}
 		
-		return pGrid[x][y];
+		return pGrid[x + dim * y];
 	}
 	
 	
@@ -391,9 +846,10 @@ public class Board {
 	 * @return piece at id
 	 */
 	public Piece getPieceAt(int id){
-		int cordX = id % dim;
-		int cordY = (id - cordX) / dim;
-		return getPieceAt(cordX, cordY);
+		if (id < 0 || id >= squares) {
+			return null;
+		}
+		return pGrid[id];
 	}
 	
 	
@@ -418,9 +874,25 @@ public class Board {
 	 * clears all pieces on board and reset piece count
 	 */
 	public void clear() {
-		pGrid = new Piece[dim][dim];
-		pList.clear();
+		for (int i = 0; i < pCount; i++) {
+			hash ^= pieceKey(pList[i], pList[i].getId());
+		}
+		pGrid = new Piece[squares];
+		Bitboard.clearAll(occupied[Data.PLAYER_A]);
+		Bitboard.clearAll(occupied[Data.PLAYER_B]);
+		for (int i = 0; i < pCount; i++) {
+			pList[i].published = false;
+		}
+		Arrays.fill(pList, null);
 		pCount = 0;
+		royalCountValid = false;
+		for (int player = Data.PLAYER_A; player <= Data.PLAYER_B; player++) {
+			Arrays.fill(typeCount[player], 0);
+			Arrays.fill(attackers[player], 0);
+			mobility[player] = 0;
+			attackedRoyals[player] = 0;
+			castleDistance[player] = 0;
+		}
 	}
 
 	
@@ -443,12 +915,256 @@ public class Board {
 	
 	
 	
+	/**
+	 * @param i - index below getPiecesCount()
+	 * @return the i-th piece on board, the order changes as
+	 * 			pieces are removed
+	 */
+	public Piece getPiece(int i) {
+		return pList[i];
+	}
+	
+	
+	
 	/**
 	 * updates attack paths for all pieces on board
 	 */
 	public void updateAttack(){
-		for (int i = 0; i < pList.size(); i++)
-			pList.get(i).sketchAttackPaths();
+		for (int i = 0; i < pCount; i++)
+			pList[i].markStale();
+		attackStale = true;
+		refreshAttack();
+	}
+	
+	
+	
+	/**
+	 * sketches again only the pieces whose paths were affected
+	 * by changes since the last refresh
+	 */
+	public void refreshAttack(){
+		if (!attackStale) {
+			return;
+		}
+		attackStale = false;
+		for (int i = 0; i < pCount; i++)
+			pList[i].refreshPaths();
+	}
+	
+	
+	
+	/**
+	 * @param id - a position whose terrain, castle or occupant changed
+	 * 
+	 * marks every piece whose paths examined id
+	 */
+	private void touch(int id){
+		for (int i = 0; i < pCount; i++) {
+			Piece p = pList[i];
+			if (p.watches(id)) {
+				p.markStale();
+				attackStale = true;
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * @param p - piece whose paths were just sketched
+	 * 
+	 * counts the paths of p in the attack terms
+	 */
+	void publish(Piece p) {
+		if (p.published) {
+			return;
+		}
+		int player = p.getPlayer();
+		int[] count = attackers[player];
+		for (int i = 0; i < p.reachableCount; i++) {
+			if (count[p.reachable[i]]++ == 0) {
+				exposeRoyal(p.reachable[i], player, 1);
+			}
+		}
+		for (int i = 0; i < p.rangedCount; i++) {
+			if (count[p.rangedAttacks[i]]++ == 0) {
+				exposeRoyal(p.rangedAttacks[i], player, 1);
+			}
+		}
+		mobility[player] += p.reachableCount + p.rangedCount;
+		p.published = true;
+	}
+	
+	
+	
+	/**
+	 * @param p - piece whose paths are about to change or leave the board
+	 * 
+	 * takes the paths of p out of the attack terms
+	 */
+	void unpublish(Piece p) {
+		if (!p.published) {
+			return;
+		}
+		int player = p.getPlayer();
+		int[] count = attackers[player];
+		for (int i = 0; i < p.reachableCount; i++) {
+			if (--count[p.reachable[i]] == 0) {
+				exposeRoyal(p.reachable[i], player, -1);
+			}
+		}
+		for (int i = 0; i < p.rangedCount; i++) {
+			if (--count[p.rangedAttacks[i]] == 0) {
+				exposeRoyal(p.rangedAttacks[i], player, -1);
+			}
+		}
+		mobility[player] -= p.reachableCount + p.rangedCount;
+		p.published = false;
+	}
+	
+	
+	
+	/**
+	 * @param id	 - position player's pieces began or ceased to attack
+	 * @param player - attacking player
+	 * @param delta	 - 1 if id began to be attacked, -1 if it ceased
+	 * 
+	 * counts an enemy royal piece on id in or out of the attacked royals
+	 */
+	private void exposeRoyal(int id, int player, int delta) {
+		Piece p = pGrid[id];
+		if (p != null && p.getPlayer() != player && isRoyalType(p.getType())) {
+			attackedRoyals[p.getPlayer()] += delta;
+		}
+	}
+	
+	
+	
+	/**
+	 * @param p		- piece put on or taken off id
+	 * @param id
+	 * @param delta	- 1 if p was put on id, -1 if it is taken off
+	 * 
+	 * counts p in or out of the attacked royals if it is royal and the
+	 * enemy attacks id
+	 */
+	private void placeRoyal(Piece p, int id, int delta) {
+		int enemy = Data.PLAYER_A + Data.PLAYER_B - p.getPlayer();
+		if (isRoyalType(p.getType()) && attackers[enemy][id] > 0) {
+			attackedRoyals[p.getPlayer()] += delta;
+		}
+	}
+	
+	
+	
+	/**
+	 * @param type - one of Data.PIECE_*
+	 * @return true if pieces of type are royal, known before the
+	 * 			piece is fully constructed
+	 */
+	private static boolean isRoyalType(int type) {
+		return type == Data.PIECE_KING || type == Data.PIECE_DUKE || type == Data.PIECE_PRINCE;
+	}
+	
+	
+	
+	/**
+	 * @param p
+	 * @param id - position of p
+	 * @return moves p needs from id to reach the enemy castle green,
+	 * 			0 for royal pieces, the distance fields must be loaded
+	 */
+	private int castleDistance(Piece p, int id) {
+		int type = p.getType();
+		if (isRoyalType(type)) {
+			return 0;
+		}
+		int enemy = Data.PLAYER_A + Data.PLAYER_B - p.getPlayer();
+		return distances.distance(RayTable.classOf(type), p.getPlayer(), enemy, id);
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @param type	 - one of Data.PIECE_*
+	 * @return number of pieces of type player has on board
+	 */
+	public int getTypeCount(int player, int type) {
+		return typeCount[player][type];
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @param id
+	 * @return number of player's pieces that could take a piece on id
+	 * 
+	 * the paths changed by moves since the last call are sketched again
+	 * first, as for every attack term
+	 */
+	public int getAttackers(int player, int id) {
+		refreshAttack();
+		return attackers[player][id];
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return number of reachable and ranged positions over all of
+	 * 			player's pieces
+	 */
+	public int getMobility(int player) {
+		refreshAttack();
+		return mobility[player];
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return sum of the moves player's non-royal pieces need to reach
+	 * 			the enemy castle green, ignoring other pieces
+	 * 
+	 * counted again from the distance fields after terrain or castles
+	 * changed, then kept up to date by every move
+	 */
+	public int getCastleDistance(int player) {
+		if (!castleDistanceValid) {
+			distances = DistanceFields.forBoard(this);
+			castleDistance[Data.PLAYER_A] = 0;
+			castleDistance[Data.PLAYER_B] = 0;
+			for (int i = 0; i < pCount; i++) {
+				castleDistance[pList[i].getPlayer()] += castleDistance(pList[i], pList[i].getId());
+			}
+			castleDistanceValid = true;
+		}
+		return castleDistance[player];
+	}
+	
+	
+	
+	/**
+	 * @return zobrist key of the terrain and castles, equal for boards
+	 * 			with the same map whatever their pieces
+	 */
+	public long getTerrainHash() {
+		return terrainHash;
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return number of player's royal pieces the enemy could take
+	 * 
+	 * kept up to date as paths are published and pieces placed
+	 */
+	public int getAttackedRoyals(int player) {
+		refreshAttack();
+		return attackedRoyals[player];
 	}
 	
 	
@@ -458,9 +1174,7 @@ public class Board {
 	 * @return castle at id
 	 */
 	public Castle getCastle(int id) {
-		int cordX = id % dim;
-		int cordY = (id - cordX) / dim;
-		return getCastle(cordX, cordY);
+		return cGrid[id];
 	}
 
 	
@@ -471,7 +1185,7 @@ public class Board {
 	 * @return castle at (x,y)
 	 */
 	public Castle getCastle(int x, int y) {
-		return cGrid[x][y];
+		return cGrid[x + dim * y];
 	}
 
 	
@@ -481,7 +1195,7 @@ public class Board {
 	 */
 	public void resetMoveCount(){
 		for (int i = 0; i < pCount; i++){
-			pList.get(i).setMoveCount(0);
+			setMoveCount(pList[i], 0);
 		}
 	}
 	
@@ -490,19 +1204,19 @@ public class Board {
 	 */
 	@Override
 	public String toString() {
-		String output = new String();
+		StringBuilder output = new StringBuilder(2 * squares + dim);
 
 		for (int i = 0; i < dim; i++) {
 			for (int j = 0; j < dim; j++) {
-				Piece printed = pGrid[i][j];
+				Piece printed = pGrid[i + dim * j];
 				if (printed == null)
-					output = output + "*" + " ";
+					output.append("* ");
 				else
-					output = output + printed.getName() + " ";
+					output.append(printed.getName()).append(' ');
 			}
-			output = output + "\n";
+			output.append('\n');
 		}
 
-		return output;
+		return output.toString();
 	}
 }
@@ -0,0 +1,223 @@
+package componentLibrary;
+
+import gameEngine.Data;
+
+import java.awt.Point;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * number of moves a piece needs to reach a castle green from every
+ * position of a board, one field per movement class, moving player
+ * and castle, found by breadth first search over the terrain
+ *
+ * pieces are ignored, only terrain and castles block, so the fields
+ * of a map are shared by every board with the same terrain hash
+ */
+public final class DistanceFields {
+
+	public static final int UNREACHABLE = 64;	// distance of positions that never reach the green
+
+	private static final int CACHE_SIZE = 32;	// maps kept at once
+
+	private static final Map<Long, DistanceFields> cache = new LinkedHashMap<Long, DistanceFields>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, DistanceFields> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private final int dim;
+	private final int squares;
+	private final int[][][][] fields;	// indexed by movement class, moving player, castle owner
+
+
+
+	/**
+	 * @param board
+	 * @return the fields of board's terrain and castles, built on first use
+	 */
+	public static DistanceFields forBoard(Board board) {
+		long key = board.getTerrainHash() ^ board.getDim();
+		synchronized (cache) {
+			DistanceFields fields = cache.get(key);
+			if (fields == null) {
+				fields = new DistanceFields(board);
+				cache.put(key, fields);
+			}
+			return fields;
+		}
+	}
+
+
+
+	/**
+	 * @param board
+	 *
+	 * searches all fields of board
+	 */
+	private DistanceFields(Board board) {
+		dim = board.getDim();
+		squares = dim * dim;
+		fields = new int[RayTable.CLASSES][Data.PLAYER_B + 1][Data.PLAYER_B + 1][];
+
+		RayTable rays = RayTable.forDimension(dim);
+		int[] start = new int[squares + 1];
+		int[] edges = new int[squares * RayTable.DIRECTIONS * dim];
+
+		for (int c = 0; c < RayTable.CLASSES; c++) {
+			for (int mover = Data.PLAYER_A; mover <= Data.PLAYER_B; mover++) {
+				int size = 0;
+				for (int sq = 0; sq < squares; sq++) {
+					start[sq] = size;
+					size = moves(board, rays, c, mover, sq, edges, size);
+				}
+				start[squares] = size;
+
+				for (int owner = Data.PLAYER_A; owner <= Data.PLAYER_B; owner++) {
+					Castle castle = board.getCastleByPlayer(owner);
+					if (castle != null) {
+						Point green = castle.getEntrancePoint();
+						fields[c][mover][owner] = search(start, edges, green.x + dim * green.y);
+					}
+				}
+			}
+		}
+	}
+
+
+
+	/**
+	 * @param board
+	 * @param rays
+	 * @param c		 - movement class
+	 * @param mover	 - player of the moving piece
+	 * @param sq	 - position moved from
+	 * @param edges	 - array to append the destinations to
+	 * @param size	 - number of ids already in edges
+	 * @return size of edges after appending the positions a piece of class c
+	 * 			could move to from sq on an empty board
+	 */
+	private int moves(Board board, RayTable rays, int c, int mover, int sq, int[] edges, int size) {
+		Castle home = board.getCastle(sq);
+		if (home != null) {
+			Point green = home.getEntrancePoint();
+			edges[size++] = green.x + dim * green.y;	// a piece in a castle only leaves through its green
+			return size;
+		}
+
+		int durability = c == RayTable.MOUNTED ? 0 : 1;
+		Castle enemy = board.getCastleByPlayer(Data.PLAYER_A + Data.PLAYER_B - mover);
+
+		for (int dir = 0; dir < RayTable.DIRECTIONS; dir++) {
+			int last = rays.end(c, sq, dir) - 1;
+			for (int i = rays.start(c, sq, dir); i <= last; i++) {
+				int dest = rays.square(i);
+				int terrain = board.getTerrain(dest);
+
+				if (c == RayTable.SQUIRE) {
+					if (terrain >= durability) {
+						if (i == last && enemy != null && (enemy.isGreen(sq) || enemy.isGreen(dest))) {
+							edges[size++] = dest;
+						}
+						break;
+					}
+					if (i == last) {
+						edges[size++] = dest;
+					}
+				} else if (terrain > durability) {
+					if (!board.isCastle(dest) && board.isGreen(dest)) {
+						edges[size++] = dest;	// entering a castle never leads on to a green
+					}
+					break;
+				} else if (terrain == durability && durability != 0) {
+					edges[size++] = dest;
+					break;
+				} else {
+					edges[size++] = dest;
+				}
+			}
+		}
+		return size;
+	}
+
+
+
+	/**
+	 * @param start	- offset of each position's moves in edges
+	 * @param edges	- destinations of the moves from each position
+	 * @param goal
+	 * @return moves needed from each position to reach goal
+	 *
+	 * searches backwards from goal over the reversed moves
+	 */
+	private int[] search(int[] start, int[] edges, int goal) {
+		int[] reverseStart = new int[squares + 1];
+		for (int i = 0; i < start[squares]; i++) {
+			reverseStart[edges[i] + 1]++;
+		}
+		for (int sq = 0; sq < squares; sq++) {
+			reverseStart[sq + 1] += reverseStart[sq];
+		}
+		int[] fill = reverseStart.clone();
+		int[] reverse = new int[start[squares]];
+		for (int sq = 0; sq < squares; sq++) {
+			for (int i = start[sq]; i < start[sq + 1]; i++) {
+				reverse[fill[edges[i]]++] = sq;
+			}
+		}
+
+		int[] distance = new int[squares];
+		for (int sq = 0; sq < squares; sq++) {
+			distance[sq] = UNREACHABLE;
+		}
+		int[] queue = new int[squares];
+		int head = 0;
+		int tail = 0;
+		distance[goal] = 0;
+		queue[tail++] = goal;
+
+		while (head < tail) {
+			int sq = queue[head++];
+			int next = distance[sq] + 1;
+			for (int i = reverseStart[sq]; i < reverseStart[sq + 1]; i++) {
+				int from = reverse[i];
+				if (distance[from] == UNREACHABLE) {
+					distance[from] = Math.min(next, UNREACHABLE);
+					queue[tail++] = from;
+				}
+			}
+		}
+		return distance;
+	}
+
+
+
+	/**
+	 * @param movement	- movement class of the piece in RayTable
+	 * @param mover		- player of the piece
+	 * @param owner		- player owning the castle
+	 * @return moves needed from each position to reach the green of
+	 * 			owner's castle, null if owner has no castle, not to be changed
+	 */
+	public int[] field(int movement, int mover, int owner) {
+		return fields[movement][mover][owner];
+	}
+
+
+
+	/**
+	 * @param movement
+	 * @param mover
+	 * @param owner
+	 * @param sq
+	 * @return moves needed from sq to reach the green of owner's castle,
+	 * 			UNREACHABLE if it cannot be reached or owner has no castle
+	 */
+	public int distance(int movement, int mover, int owner, int sq) {
+		int[] field = fields[movement][mover][owner];
+		return field == null ? UNREACHABLE : field[sq];
+	}
+}
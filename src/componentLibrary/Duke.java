@@ -1,5 +1,7 @@
 package componentLibrary;
 
+import gameEngine.Data;
+
 public class Duke extends MountedPiece {
 	
 	private static final String NAME = "D";
@@ -17,6 +19,12 @@ public class Duke extends MountedPiece {
 		isRoyalty = true;
 	}
 	
+	@Override
+	public int getType() {
+		return Data.PIECE_DUKE;
+	}
+	
+	
 	@Override
 	public String getName() {
 		return NAME;
@@ -1,5 +1,7 @@
 package componentLibrary;
 
+import gameEngine.Data;
+
 public class Knight extends MountedPiece {
 
 	private static final String NAME = "K";
@@ -17,6 +19,12 @@ public class Knight extends MountedPiece {
 		isRoyalty = false;
 	}
 	
+	@Override
+	public int getType() {
+		return Data.PIECE_KNIGHT;
+	}
+	
+	
 	@Override
 	public String getName() {
 		return NAME;
@@ -0,0 +1,113 @@
+package componentLibrary;
+
+/**
+ * packs a single piece move into an int
+ *
+ * bits 0-11 hold the source id, bits 12-23 the destination id
+ * and bits 24-27 the flags
+ */
+public final class Move {
+
+	public static final int FLAG_CAPTURE = 1;	// an enemy piece on the destination is removed
+	public static final int FLAG_RANGED = 2;	// the attacker stays on its source
+	public static final int FLAG_CASTLE = 4;	// the destination is a castle
+	public static final int FLAG_END_TURN = 8;	// no piece moves, the other player is to move
+
+	public static final int NONE = 0;
+	public static final int END_TURN = FLAG_END_TURN << 24;
+
+	private static final int SQUARE_BITS = 12;
+	private static final int SQUARE_MASK = (1 << SQUARE_BITS) - 1;
+
+
+
+	private Move() {
+	}
+
+
+
+	/**
+	 * @param src
+	 * @param dest
+	 * @param flags
+	 * @return the packed move
+	 */
+	public static int encode(int src, int dest, int flags) {
+		return src | (dest << SQUARE_BITS) | (flags << (2 * SQUARE_BITS));
+	}
+
+
+
+	/**
+	 * @param move
+	 * @return source id of move
+	 */
+	public static int source(int move) {
+		return move & SQUARE_MASK;
+	}
+
+
+
+	/**
+	 * @param move
+	 * @return destination id of move
+	 */
+	public static int destination(int move) {
+		return (move >>> SQUARE_BITS) & SQUARE_MASK;
+	}
+
+
+
+	/**
+	 * @param move
+	 * @return flags of move
+	 */
+	public static int flags(int move) {
+		return move >>> (2 * SQUARE_BITS);
+	}
+
+
+
+	public static boolean isCapture(int move) {
+		return (flags(move) & FLAG_CAPTURE) != 0;
+	}
+
+
+
+	public static boolean isRanged(int move) {
+		return (flags(move) & FLAG_RANGED) != 0;
+	}
+
+
+
+	public static boolean isCastleEntry(int move) {
+		return (flags(move) & FLAG_CASTLE) != 0;
+	}
+
+
+
+	public static boolean isEndTurn(int move) {
+		return (flags(move) & FLAG_END_TURN) != 0;
+	}
+
+
+
+	/**
+	 * @param move
+	 * @return readable form of move, such as "27-51x"
+	 */
+	public static String toString(int move) {
+		if (isEndTurn(move)) {
+			return "end";
+		}
+		StringBuilder out = new StringBuilder();
+		out.append(source(move)).append(isRanged(move) ? '>' : '-').append(destination(move));
+		if (isCapture(move)) {
+			out.append('x');
+		}
+		if (isCastleEntry(move)) {
+			out.append('#');
+		}
+		return out.toString();
+	}
+}
@@ -0,0 +1,96 @@
+package componentLibrary;
+
+/**
+ * generates the packed moves of one player's pieces straight from
+ * their attack paths, into an array supplied by the caller
+ */
+public final class MoveGenerator {
+
+	private MoveGenerator() {
+	}
+
+
+
+	/**
+	 * @param board
+	 * @return a move array size that could hold all moves of
+	 * 			either player on board
+	 */
+	public static int capacity(Board board) {
+		int dim = board.getDim();
+		return board.getPiecesCount() * (RayTable.DIRECTIONS * dim + RayTable.DIRECTIONS);
+	}
+
+
+
+	/**
+	 * @param board
+	 * @param player	   - player whose pieces are moved
+	 * @param moves		   - array to fill, at least capacity(board) long
+	 * @param capturesOnly - true to skip moves that take nothing
+	 * @return number of moves written to moves
+	 *
+	 * pieces already moved this turn are skipped, moves onto own
+	 * pieces and ranged attacks on empty positions are never generated
+	 */
+	public static int generate(Board board, int player, int[] moves, boolean capturesOnly) {
+		long[] own = board.getOccupancy(player);
+		long[] enemy = board.getOccupancy(3 - player);
+		int count = 0;
+
+		board.refreshAttack();
+		for (int i = 0; i < board.getPiecesCount(); i++) {
+			Piece p = board.getPiece(i);
+			if (p.getPlayer() != player || p.getMoveCount() > 0) {
+				continue;
+			}
+			int src = p.getId();
+
+			for (int j = 0; j < p.reachableCount; j++) {
+				int dest = p.reachable[j];
+				int flags = 0;
+				if (Bitboard.test(enemy, dest)) {
+					flags = Move.FLAG_CAPTURE;
+				} else if (capturesOnly || Bitboard.test(own, dest)) {
+					continue;
+				}
+				if (board.isCastle(dest)) {
+					flags |= Move.FLAG_CASTLE;
+				}
+				moves[count++] = Move.encode(src, dest, flags);
+			}
+
+			for (int j = 0; j < p.rangedCount; j++) {
+				int dest = p.rangedAttacks[j];
+				if (Bitboard.test(enemy, dest)) {
+					moves[count++] = Move.encode(src, dest, Move.FLAG_CAPTURE | Move.FLAG_RANGED);
+				}
+			}
+		}
+		return count;
+	}
+
+
+
+	/**
+	 * @param board
+	 * @param player
+	 * @return number of moves player has, without storing them
+	 */
+	public static int count(Board board, int player) {
+		long[] own = board.getOccupancy(player);
+		long[] enemy = board.getOccupancy(3 - player);
+		int count = 0;
+
+		board.refreshAttack();
+		for (int i = 0; i < board.getPiecesCount(); i++) {
+			Piece p = board.getPiece(i);
+			if (p.getPlayer() != player || p.getMoveCount() > 0) {
+				continue;
+			}
+			count += p.reachableCount - Bitboard.countAnd(p.reachMask, own);
+			count += Bitboard.countAnd(p.rangedMask, enemy);
+		}
+		return count;
+	}
+}
@@ -19,13 +19,24 @@ public abstract class Piece {
 	protected int player;		// 1-A or 2-B
 	protected int durability;	// 0 or 1, 0 is mounted, 1 is footman
 	protected int moveCount;	// how many times it is moved in a turn
+	protected int slot;			// index in the parent board's piece list
+	boolean published;			// paths are counted in the parent board's attack terms
 	
 	protected boolean isRanged;
 	protected boolean isRoyalty;
 	protected boolean isSiegable;
 	
-	protected ArrayList<Point> rangedAttacks;
-	protected ArrayList<ArrayList<Point>> reachablePaths;
+	protected int[] rangedAttacks;	// ids of enemy pieces a ranged piece could shoot
+	protected int rangedCount;
+	protected int[] reachable;		// ids reachable, grouped by direction
+	protected int reachableCount;
+	protected int[] pathEnds;		// end offset in reachable of each direction's path
+	protected int pathCount;
+	protected long[] reachMask;		// same positions as reachable, as a bitboard
+	protected long[] rangedMask;	// same positions as rangedAttacks, as a bitboard
+	protected long[] watched;		// squares the last sketch depended on
+	protected boolean stale;		// paths must be sketched again before use
+	protected RayTable rays;
 	protected Board parentBoard;
 	
 
@@ -44,12 +55,52 @@ public abstract class Piece {
 	
 	
 	/**
-	 * sketches all full paths, needs to be refined 
+	 * @return type of piece, one of Data.PIECE_*
+	 */
+	public abstract int getType();
+	
+	
+	
+	/**
+	 * sketches all reachable positions and ranged attacks
+	 * from the current position
 	 */
 	public abstract void sketchAttackPaths();
 	
 	
 	
+	/**
+	 * @param type		  - one of Data.PIECE_*
+	 * @param id
+	 * @param player
+	 * @param parentBoard
+	 * @return a new piece of type added to parentBoard at id
+	 */
+	public static Piece create(int type, int id, int player, Board parentBoard) {
+		switch (type) {
+		case Data.PIECE_KING:
+			return new King(id, player, parentBoard);
+		case Data.PIECE_DUKE:
+			return new Duke(id, player, parentBoard);
+		case Data.PIECE_PRINCE:
+			return new Prince(id, player, parentBoard);
+		case Data.PIECE_KNIGHT:
+			return new Knight(id, player, parentBoard);
+		case Data.PIECE_SERGEANT:
+			return new Sergeant(id, player, parentBoard);
+		case Data.PIECE_SQUIRE:
+			return new Squire(id, player, parentBoard);
+		case Data.PIECE_ARCHER:
+			return new Archer(id, player, parentBoard);
+		case Data.PIECE_PIKEMAN:
+			return new Pikeman(id, player, parentBoard);
+		default:
+			throw new IllegalArgumentException("unknown piece type " + type);
+		}
+	}
+	
+	
+	
 	/**
 	 * @param id
 	 * @param player
@@ -65,6 +116,7 @@ public abstract class Piece {
 		this.isRanged = isRanged;
 		this.durability = durability;
 		this.parentBoard = parentBoard;
+		initPaths();
 		this.parentBoard.add(this, id);
 	}
 	
@@ -86,11 +138,30 @@ public abstract class Piece {
 		this.isRanged = isRanged;
 		this.durability = durability;
 		this.parentBoard = parentBoard;
+		initPaths();
 		this.parentBoard.add(this, x, y);
 	}
 	
 	
 	
+	/**
+	 * allocates the path buffers once, sized for the longest
+	 * possible set of rays on this board
+	 */
+	private void initPaths() {
+		rays = RayTable.forDimension(dim);
+		reachable = new int[RayTable.DIRECTIONS * dim];
+		pathEnds = new int[RayTable.DIRECTIONS];
+		rangedAttacks = new int[RayTable.DIRECTIONS];
+		int words = Bitboard.words(dim * dim);
+		reachMask = new long[words];
+		rangedMask = new long[words];
+		watched = new long[words];
+		stale = true;
+	}
+	
+	
+	
 	/**
 	 * @param x
 	 * @param y
@@ -98,17 +169,11 @@ public abstract class Piece {
 	 */
 	public boolean canAttack(int x, int y){
 		if (isRanged) {		// for ranged piece
-			if (rangedAttacks == null) {
+			if (x >= dim || y >= dim || x < 0 || y < 0) {
 				return false;
 			}
-
-			for (int i = 0; i < rangedAttacks.size(); i++) {
-				Point comp = rangedAttacks.get(i);
-				if (comp.x == x && comp.y == y)
-					return true;
-			}
-
-			return false;
+			parentBoard.refreshAttack();
+			return Bitboard.test(rangedMask, x + dim * y);
 		} else {	// for not ranged, attack is reach
 			return canReach(x, y);
 		}
@@ -122,17 +187,11 @@ public abstract class Piece {
 	 * @return true if this piece could reach (x,y)
 	 */
 	public boolean canReach(int x, int y) {
-		ArrayList<Point> path = getReachablePoint();
-		
-		if (path == null){
+		if (x >= dim || y >= dim || x < 0 || y < 0) {
 			return false;
 		}
-		
-		for (int i = 0; i < path.size(); i++) {
-			if (path.get(i).x == x && path.get(i).y == y)
-				return true;
-		}
-		return false;
+		parentBoard.refreshAttack();
+		return Bitboard.test(reachMask, x + dim * y);
 	}
 	
 	
@@ -141,17 +200,11 @@ public abstract class Piece {
 	 * @return list of points reachable by this piece
 	 */
 	public ArrayList<Point> getReachablePoint() {
-		ArrayList<Point> reachable = new ArrayList<Point>(0);
-
-		for (int i = 0; i < reachablePaths.size(); i++) {
-			ArrayList<Point> curr = reachablePaths.get(i);
-			reachable.addAll(curr);
-		}
-
-		if (reachable.size() < 1) {
+		parentBoard.refreshAttack();
+		if (reachableCount < 1) {
 			return null;
 		}
-		return reachable;
+		return toPoints(reachable, 0, reachableCount);
 	}
 
 	
@@ -160,28 +213,114 @@ public abstract class Piece {
 	 * @return a list of 1-d id of reachable points
 	 */
 	public ArrayList<Integer> getReachableId() {
-		ArrayList<Point> points2d = getReachablePoint();
-		ArrayList<Integer> points1d = new ArrayList<Integer>(0);
-
-		if (points2d == null) {
+		parentBoard.refreshAttack();
+		if (reachableCount < 1) {
 			return null;
 		}
 
-		for (int i = 0; i < points2d.size(); i++) {
-			Point curr = points2d.get(i);
-			int temp = curr.x + Data.DIMENSION * curr.y;
-			points1d.add(temp);
+		ArrayList<Integer> points1d = new ArrayList<Integer>(reachableCount);
+		for (int i = 0; i < reachableCount; i++) {
+			points1d.add(reachable[i]);
 		}
 		return points1d;
 	}
 	
 	
 	public ArrayList<ArrayList<Point>> getReachablePaths() {
-		return reachablePaths;
+		parentBoard.refreshAttack();
+		ArrayList<ArrayList<Point>> paths = new ArrayList<ArrayList<Point>>(pathCount);
+		int from = 0;
+		for (int i = 0; i < pathCount; i++) {
+			paths.add(toPoints(reachable, from, pathEnds[i]));
+			from = pathEnds[i];
+		}
+		return paths;
 	}
 	
 	public ArrayList<Point> getRangedAttacks() {
-		return rangedAttacks;
+		parentBoard.refreshAttack();
+		if (!isRanged) {
+			return null;
+		}
+		return toPoints(rangedAttacks, 0, rangedCount);
+	}
+	
+	
+	
+	/**
+	 * @param ids
+	 * @param from
+	 * @param to
+	 * @return points of ids between from and to
+	 */
+	private ArrayList<Point> toPoints(int[] ids, int from, int to) {
+		ArrayList<Point> points = new ArrayList<Point>(to - from);
+		for (int i = from; i < to; i++) {
+			points.add(new Point(ids[i] % dim, ids[i] / dim));
+		}
+		return points;
+	}
+	
+	
+	
+	/**
+	 * @return number of positions reachable by this piece
+	 */
+	public int getReachableCount() {
+		parentBoard.refreshAttack();
+		return reachableCount;
+	}
+	
+	
+	
+	/**
+	 * @param i
+	 * @return id of the i-th reachable position
+	 */
+	public int getReachable(int i) {
+		return reachable[i];
+	}
+	
+	
+	
+	/**
+	 * @return set of positions reachable by this piece, the returned
+	 * 			array is live and must not be modified
+	 */
+	public long[] getReachableMask() {
+		parentBoard.refreshAttack();
+		return reachMask;
+	}
+	
+	
+	
+	/**
+	 * @return set of positions this piece could attack, the returned
+	 * 			array is live and must not be modified
+	 */
+	public long[] getAttackMask() {
+		parentBoard.refreshAttack();
+		return isRanged ? rangedMask : reachMask;
+	}
+	
+	
+	
+	/**
+	 * @return number of ranged attacks of this piece
+	 */
+	public int getRangedCount() {
+		parentBoard.refreshAttack();
+		return rangedCount;
+	}
+	
+	
+	
+	/**
+	 * @param i
+	 * @return id of the i-th ranged attack
+	 */
+	public int getRangedAttack(int i) {
+		return rangedAttacks[i];
 	}
 	
 	
@@ -339,75 +478,136 @@ public abstract class Piece {
 	
 	
 	/**
-	 * refines sketched attack paths, removes all
-	 * unreachable places added by simple pattern matching
+	 * sketches the paths again if any square they depend on has changed
 	 */
-	protected void verifyAttackPaths() {
+	void refreshPaths() {
+		if (stale) {
+			parentBoard.unpublish(this);
+			sketchAttackPaths();
+			parentBoard.publish(this);
+			stale = false;
+		}
+	}
+	
+	
+	
+	/**
+	 * marks the paths to be sketched again before their next use
+	 */
+	void markStale() {
+		stale = true;
+	}
+	
+	
+	
+	/**
+	 * @param sq
+	 * @return true if the last sketch examined sq
+	 */
+	boolean watches(int sq) {
+		return Bitboard.test(watched, sq);
+	}
+	
+	
+	
+	/**
+	 * empties all paths before a new sketch, the piece always
+	 * depends on its own position
+	 */
+	protected void resetPaths() {
+		reachableCount = 0;
+		rangedCount = 0;
+		pathCount = 0;
+		Bitboard.clearAll(reachMask);
+		Bitboard.clearAll(rangedMask);
+		Bitboard.clearAll(watched);
+		Bitboard.set(watched, id);
+	}
+	
+	
+	
+	/**
+	 * @param sq - position to add to the reachable paths
+	 */
+	protected void addReachable(int sq) {
+		reachable[reachableCount++] = sq;
+		Bitboard.set(reachMask, sq);
+	}
+	
+	
+	
+	/**
+	 * @param sq - position to add to the ranged attacks
+	 */
+	protected void addRanged(int sq) {
+		rangedAttacks[rangedCount++] = sq;
+		Bitboard.set(rangedMask, sq);
+	}
+	
+	
+	
+	/**
+	 * @param movement - ray class of the piece in RayTable
+	 * 
+	 * walks the precomputed rays of this piece's square, keeping
+	 * only the positions reachable under the terrain and piece rules
+	 */
+	protected void walkRays(int movement) {
+		resetPaths();
+		
 		if (parentBoard.isCastle(id)) {
 			siegeMode();
 			return;
 		}
-		ArrayList<ArrayList<Point>> masterCopy = new ArrayList<ArrayList<Point>>(0);
 
-		for (int i = 0; i < 8; i++) {
-			ArrayList<Point> curr = reachablePaths.get(i);
-			ArrayList<Point> copy = new ArrayList<Point>(0);
-			for (int j = 0; j < curr.size(); j++) {
-				if (checkPosition(curr, copy, j)) {
+		for (int dir = 0; dir < RayTable.DIRECTIONS; dir++) {
+			int end = rays.end(movement, id, dir);
+			for (int i = rays.start(movement, id, dir); i < end; i++) {
+				if (checkPosition(rays.square(i))) {
 					break;
 				}
 			}
-			masterCopy.add(copy);
+			pathEnds[pathCount++] = reachableCount;
 		}
-		reachablePaths = masterCopy;
 	}
 
 
 
 	/**
-	 * @param curr 		- the current list of positions treading
-	 * @param copy		- the list of reachable positions to copy to
-	 * @param currIndex - the current index being examined
+	 * @param sq - the position being examined
 	 * @return true if cannot move further
 	 */
-	private boolean checkPosition(ArrayList<Point> curr, ArrayList<Point> copy, int currIndex) {
-		Point p = curr.get(currIndex);
-		if (p.x >= dim || p.x < 0 || p.y >= dim || p.y < 0) { // out of bounds
-			return true;
-		}
-
-		int terrain = parentBoard.getTerrain(p.x, p.y);
+	private boolean checkPosition(int sq) {
+		Bitboard.set(watched, sq);
+		int terrain = parentBoard.getTerrain(sq);
 		if (terrain > durability) {
-			if (isEnteringCastle(p))
-				copy.add(p);
+			if (isEnteringCastle(sq))
+				addReachable(sq);
 			return true; // castle or not, must stop
 		} else if (terrain == durability && durability != 0) {
-			copy.add(p); // could go onto but stopped
+			addReachable(sq); // could go onto but stopped
 			return true;
 		}
 
-		Piece target = parentBoard.getPieceAt(p.x, p.y);
-		if (target != null) {
-			handlePiece(copy, p, target);
+		if (parentBoard.isOccupied(sq)) {
+			handlePiece(sq);
 			return true; // stop by any piece
 		}
-		copy.add(p);
+		addReachable(sq);
 		return false;
 	}
 
 
 
 	/**
-	 * @param copy	 - current list of positions treading
-	 * @param p		 - current piece at the position examined
-	 * @param target - target piece
+	 * @param sq - the occupied position being examined
 	 */
-	private void handlePiece(ArrayList<Point> copy, Point p, Piece target) {
-		if (player != target.getPlayer()) {
+	private void handlePiece(int sq) {
+		if (!Bitboard.test(parentBoard.getOccupancy(player), sq)) {
 			if (isRanged) {
-				rangedAttacks.add(p);
+				addRanged(sq);
 			} else {
-				copy.add(p);
+				addReachable(sq);
 			}
 		}
 	}
@@ -415,12 +615,12 @@ public abstract class Piece {
 	
 	
 	/**
-	 * @param p
-	 * @return true if piece could move to this point
+	 * @param sq
+	 * @return true if piece could move to this position
 	 * 			given that it is rough terrain
 	 */
-	private boolean isEnteringCastle(Point p){
-		Castle c1 = parentBoard.getCastle(p.x, p.y);
+	private boolean isEnteringCastle(int sq){
+		Castle c1 = parentBoard.getCastle(sq);
 		
 		if (c1 != null){	// there is a castle
 			if (c1.isGreen(cordX, cordY)){ // standing on green
@@ -433,13 +633,7 @@ public abstract class Piece {
 				return false; // not standing on green, cannot go
 			}
 		}else{	// no castle, but could be a green
-			Castle c2 = parentBoard.getCastleByPlayer(Data.PLAYER_A);
-			Castle c3 = parentBoard.getCastleByPlayer(Data.PLAYER_B);
-			if (c2 != null && c2.isGreen(p.x, p.y)){
-				return true;
-			}else if (c3 != null && c3.isGreen(p.x, p.y)){
-				return true;
-			}
+			return parentBoard.isGreen(sq);
 		}
 		return false;
 	}
@@ -450,12 +644,12 @@ public abstract class Piece {
 	 * handles the verify path when the piece is in castle
 	 */
 	private void siegeMode() {
-		ArrayList<Point> single = new ArrayList<Point>(0);
-		single.add(parentBoard.getCastle(id).getEntrancePoint());
-		reachablePaths = new ArrayList<ArrayList<Point>>(0);
-		reachablePaths.add(single);
+		Point green = parentBoard.getCastle(id).getEntrancePoint();
+		int entrance = green.x + dim * green.y;
+		addReachable(entrance);
+		pathEnds[pathCount++] = reachableCount;
 		if (isRanged) {
-			rangedAttacks.add(single.get(0));
+			addRanged(entrance);
 		}
 	}
 }
@@ -1,7 +1,6 @@
 package componentLibrary;
 
-import java.awt.Point;
-import java.util.ArrayList;
+import gameEngine.Data;
 
 public class Pikeman extends Piece {
 
@@ -23,41 +22,15 @@ public class Pikeman extends Piece {
 	
 	@Override
 	public void sketchAttackPaths() {
-		reachablePaths = new ArrayList<ArrayList<Point>> (0);
-		
-		ArrayList<Point> n = new ArrayList<Point> (0);
-		ArrayList<Point> s = new ArrayList<Point> (0);
-		ArrayList<Point> w = new ArrayList<Point> (0);
-		ArrayList<Point> e = new ArrayList<Point> (0);
-		ArrayList<Point> nw = new ArrayList<Point> (0);
-		ArrayList<Point> ne = new ArrayList<Point> (0);
-		ArrayList<Point> sw = new ArrayList<Point> (0);
-		ArrayList<Point> se = new ArrayList<Point> (0);
-		
-		nw.add(new Point(cordX-1, cordY-1));
-		ne.add(new Point(cordX+1, cordY-1));
-		sw.add(new Point(cordX-1, cordY+1));
-		se.add(new Point(cordX+1, cordY+1));
-		
-		for (int offset = 1; offset <= 12; offset++){
-			n.add(new Point(cordX, cordY-offset));
-			s.add(new Point(cordX, cordY+offset));
-			e.add(new Point(cordX+offset, cordY));
-			w.add(new Point(cordX-offset, cordY));
-		}
-		
-		reachablePaths.add(n);
-		reachablePaths.add(s);
-		reachablePaths.add(w);
-		reachablePaths.add(e);
-		reachablePaths.add(nw);
-		reachablePaths.add(ne);
-		reachablePaths.add(sw);
-		reachablePaths.add(se);
-		
-		verifyAttackPaths();
+		walkRays(RayTable.PIKEMAN);
 	}
 
+	@Override
+	public int getType() {
+		return Data.PIECE_PIKEMAN;
+	}
+	
+	
 	@Override
 	public String getName() {
 		return NAME;
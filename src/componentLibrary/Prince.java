@@ -1,5 +1,7 @@
 package componentLibrary;
 
+import gameEngine.Data;
+
 
 public class Prince extends MountedPiece {
 	
@@ -17,6 +19,12 @@ public class Prince extends MountedPiece {
 		isRoyalty = true;
 	}
 	
+	@Override
+	public int getType() {
+		return Data.PIECE_PRINCE;
+	}
+	
+	
 	@Override
 	public String getName() {
 		return NAME;
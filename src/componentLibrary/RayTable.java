@@ -0,0 +1,211 @@
+package componentLibrary;
+
+import gameEngine.Data;
+
+import java.util.HashMap;
+
+/**
+ * precomputed movement rays for every square of a board dimension,
+ * stored as packed square ids and already clipped to the board
+ *
+ * the rays of one square and movement class are laid out in direction
+ * order, so that walking them gives the same order as the old per-call
+ * point lists
+ */
+public final class RayTable {
+
+	public static final int KING = 0;		// 2 squares in 8 directions
+	public static final int ARCHER = 1;		// 3 squares in 8 directions
+	public static final int SERGEANT = 2;	// 1 orthogonal, 12 diagonal
+	public static final int PIKEMAN = 3;	// 12 orthogonal, 1 diagonal
+	public static final int MOUNTED = 4;	// unlimited in 8 directions
+	public static final int SQUIRE = 5;		// 8 L shaped jumps, 3 squares each
+
+	public static final int CLASSES = 6;
+	public static final int DIRECTIONS = 8;
+
+	// movement class of each piece type, indexed by Data.PIECE_*
+	private static final int[] TYPE_CLASS = new int[Data.PIECE_TYPES];
+	static {
+		TYPE_CLASS[Data.PIECE_KING] = KING;
+		TYPE_CLASS[Data.PIECE_DUKE] = MOUNTED;
+		TYPE_CLASS[Data.PIECE_PRINCE] = MOUNTED;
+		TYPE_CLASS[Data.PIECE_KNIGHT] = MOUNTED;
+		TYPE_CLASS[Data.PIECE_SERGEANT] = SERGEANT;
+		TYPE_CLASS[Data.PIECE_SQUIRE] = SQUIRE;
+		TYPE_CLASS[Data.PIECE_ARCHER] = ARCHER;
+		TYPE_CLASS[Data.PIECE_PIKEMAN] = PIKEMAN;
+	}
+
+	// n, s, w, e, nw, ne, sw, se
+	private static final int[] DX = {0, 0, -1, 1, -1, 1, -1, 1};
+	private static final int[] DY = {-1, 1, 0, 0, -1, -1, 1, 1};
+
+	// nw, ne, sw, se, wn, ws, en, es, each path as three (dx, dy) steps
+	private static final int[][] SQUIRE_PATHS = {
+		{0, -1, 0, -2, -1, -2}, {0, -1, 0, -2, 1, -2},
+		{0, 1, 0, 2, -1, 2}, {0, 1, 0, 2, 1, 2},
+		{-1, 0, -2, 0, -2, -1}, {-1, 0, -2, 0, -2, 1},
+		{1, 0, 2, 0, 2, -1}, {1, 0, 2, 0, 2, 1}};
+
+	private static final HashMap<Integer, RayTable> tables = new HashMap<Integer, RayTable>();
+
+	private final int dim;
+	private final int squares;
+	private final int[] starts;		// offset into rays, indexed by (class * squares + sq) * 8 + dir
+	private final int[] rays;
+
+
+
+	/**
+	 * @param dim
+	 * @return the shared ray table of boards with dimension dim
+	 */
+	public static synchronized RayTable forDimension(int dim) {
+		RayTable table = tables.get(dim);
+		if (table == null) {
+			table = new RayTable(dim);
+			tables.put(dim, table);
+		}
+		return table;
+	}
+
+
+
+	/**
+	 * @param type - piece type, one of Data.PIECE_*
+	 * @return movement class pieces of type walk their rays in
+	 */
+	public static int classOf(int type) {
+		return TYPE_CLASS[type];
+	}
+
+
+
+	/**
+	 * @param dim
+	 *
+	 * builds rays of all movement classes for every square
+	 */
+	private RayTable(int dim) {
+		this.dim = dim;
+		this.squares = dim * dim;
+		this.starts = new int[CLASSES * squares * DIRECTIONS + 1];
+
+		int[] buffer = new int[CLASSES * squares * DIRECTIONS * dim];
+		int size = 0;
+
+		for (int c = 0; c < CLASSES; c++) {
+			for (int sq = 0; sq < squares; sq++) {
+				for (int dir = 0; dir < DIRECTIONS; dir++) {
+					starts[(c * squares + sq) * DIRECTIONS + dir] = size;
+					size = fillRay(buffer, size, c, sq, dir);
+				}
+			}
+		}
+		starts[starts.length - 1] = size;
+
+		rays = new int[size];
+		System.arraycopy(buffer, 0, rays, 0, size);
+	}
+
+
+
+	/**
+	 * @param buffer
+	 * @param size	- number of ids already in buffer
+	 * @param c		- movement class
+	 * @param sq
+	 * @param dir
+	 * @return size of buffer after appending the ray
+	 */
+	private int fillRay(int[] buffer, int size, int c, int sq, int dir) {
+		int x = sq % dim;
+		int y = sq / dim;
+
+		if (c == SQUIRE) {
+			int[] path = SQUIRE_PATHS[dir];
+			if (!onBoard(x + path[4], y + path[5])) {
+				return size; // the jump only counts when it lands on board
+			}
+			for (int i = 0; i < path.length; i += 2) {
+				buffer[size++] = (x + path[i]) + dim * (y + path[i + 1]);
+			}
+			return size;
+		}
+
+		int range = range(c, dir);
+		for (int offset = 1; offset <= range; offset++) {
+			int tx = x + offset * DX[dir];
+			int ty = y + offset * DY[dir];
+			if (!onBoard(tx, ty)) {
+				break;
+			}
+			buffer[size++] = tx + dim * ty;
+		}
+		return size;
+	}
+
+
+
+	/**
+	 * @param c
+	 * @param dir
+	 * @return how far a piece of class c travels in direction dir
+	 */
+	private int range(int c, int dir) {
+		boolean diagonal = dir >= 4;
+		switch (c) {
+		case KING:
+			return 2;
+		case ARCHER:
+			return 3;
+		case SERGEANT:
+			return diagonal ? 12 : 1;
+		case PIKEMAN:
+			return diagonal ? 1 : 12;
+		default:
+			return dim;
+		}
+	}
+
+
+
+	private boolean onBoard(int x, int y) {
+		return x >= 0 && x < dim && y >= 0 && y < dim;
+	}
+
+
+
+	/**
+	 * @param c
+	 * @param sq
+	 * @param dir
+	 * @return index of the first square of the ray
+	 */
+	public int start(int c, int sq, int dir) {
+		return starts[(c * squares + sq) * DIRECTIONS + dir];
+	}
+
+
+
+	/**
+	 * @param c
+	 * @param sq
+	 * @param dir
+	 * @return index one past the last square of the ray
+	 */
+	public int end(int c, int sq, int dir) {
+		return starts[(c * squares + sq) * DIRECTIONS + dir + 1];
+	}
+
+
+
+	/**
+	 * @param i - index between start and end of a ray
+	 * @return square id at index i
+	 */
+	public int square(int i) {
+		return rays[i];
+	}
+}
@@ -1,7 +1,6 @@
 package componentLibrary;
 
-import java.awt.Point;
-import java.util.ArrayList;
+import gameEngine.Data;
 
 public class Sergeant extends Piece {
 	
@@ -23,41 +22,15 @@ public class Sergeant extends Piece {
 	
 	@Override
 	public void sketchAttackPaths() {
-		reachablePaths = new ArrayList<ArrayList<Point>> (0);
-		
-		ArrayList<Point> n = new ArrayList<Point> (0);
-		ArrayList<Point> s = new ArrayList<Point> (0);
-		ArrayList<Point> w = new ArrayList<Point> (0);
-		ArrayList<Point> e = new ArrayList<Point> (0);
-		ArrayList<Point> nw = new ArrayList<Point> (0);
-		ArrayList<Point> ne = new ArrayList<Point> (0);
-		ArrayList<Point> sw = new ArrayList<Point> (0);
-		ArrayList<Point> se = new ArrayList<Point> (0);
-		
-		n.add(new Point(cordX, cordY-1));
-		s.add(new Point(cordX, cordY+1));
-		e.add(new Point(cordX+1, cordY));
-		w.add(new Point(cordX-1, cordY));
-		
-		for (int offset = 1; offset <= 12; offset++){
-			nw.add(new Point(cordX-offset, cordY-offset));
-			ne.add(new Point(cordX+offset, cordY-offset));
-			sw.add(new Point(cordX-offset, cordY+offset));
-			se.add(new Point(cordX+offset, cordY+offset));
-		}
-		
-		reachablePaths.add(n);
-		reachablePaths.add(s);
-		reachablePaths.add(w);
-		reachablePaths.add(e);
-		reachablePaths.add(nw);
-		reachablePaths.add(ne);
-		reachablePaths.add(sw);
-		reachablePaths.add(se);
-		
-		verifyAttackPaths();
+		walkRays(RayTable.SERGEANT);
 	}
 
+	@Override
+	public int getType() {
+		return Data.PIECE_SERGEANT;
+	}
+	
+	
 	@Override
 	public String getName() {
 		return NAME;
@@ -0,0 +1,139 @@
+package componentLibrary;
+
+import gameEngine.Data;
+
+import java.util.HashMap;
+
+/**
+ * random keys for hashing positions, one table per board dimension
+ *
+ * the keys come from a fixed seed so that a position hashes to the
+ * same value in every run, which keeps stored hashes comparable
+ */
+public final class Zobrist {
+
+	private static final long SEED = 0x5EEDF00DCAFEBABEL;
+
+	private static final HashMap<Integer, Zobrist> tables = new HashMap<Integer, Zobrist>();
+
+	private final int squares;
+	private final long[] pieceKeys;		// indexed by ((type * 2) + player - 1) * squares + sq
+	private final long[] movedKeys;		// a piece on sq has moved this turn
+	private final long[] terrainKeys;	// indexed by (type - 1) * squares + sq, default terrain has no key
+	private final long[] castleKeys;	// indexed by (player - 1) * squares + sq
+	private final long sideKey;			// player B is to move
+
+
+
+	/**
+	 * @param dim
+	 * @return the shared key table of boards with dimension dim
+	 */
+	public static synchronized Zobrist forDimension(int dim) {
+		Zobrist table = tables.get(dim);
+		if (table == null) {
+			table = new Zobrist(dim);
+			tables.put(dim, table);
+		}
+		return table;
+	}
+
+
+
+	/**
+	 * @param dim
+	 *
+	 * draws all keys from a splitmix64 sequence
+	 */
+	private Zobrist(int dim) {
+		squares = dim * dim;
+		long state = SEED + dim;
+
+		pieceKeys = new long[Data.PIECE_TYPES * 2 * squares];
+		movedKeys = new long[squares];
+		terrainKeys = new long[2 * squares];
+		castleKeys = new long[2 * squares];
+
+		for (int i = 0; i < pieceKeys.length; i++) {
+			pieceKeys[i] = mix(state += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < squares; i++) {
+			movedKeys[i] = mix(state += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < terrainKeys.length; i++) {
+			terrainKeys[i] = mix(state += 0x9E3779B97F4A7C15L);
+		}
+		for (int i = 0; i < castleKeys.length; i++) {
+			castleKeys[i] = mix(state += 0x9E3779B97F4A7C15L);
+		}
+		sideKey = mix(state += 0x9E3779B97F4A7C15L);
+	}
+
+
+
+	/**
+	 * @param z
+	 * @return z scrambled by the splitmix64 finalizer
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+
+
+	/**
+	 * @param type	 - piece type, one of Data.PIECE_*
+	 * @param player
+	 * @param sq
+	 * @return key of a piece standing on sq
+	 */
+	public long piece(int type, int player, int sq) {
+		return pieceKeys[((type << 1) + player - 1) * squares + sq];
+	}
+
+
+
+	/**
+	 * @param sq
+	 * @return key of the piece on sq having moved this turn
+	 */
+	public long moved(int sq) {
+		return movedKeys[sq];
+	}
+
+
+
+	/**
+	 * @param type - terrain type
+	 * @param sq
+	 * @return key of terrain type on sq
+	 */
+	public long terrain(int type, int sq) {
+		if (type == Data.TERRAIN_DEFAULT) {
+			return 0;
+		}
+		return terrainKeys[(type - 1) * squares + sq];
+	}
+
+
+
+	/**
+	 * @param player
+	 * @param sq
+	 * @return key of player's castle standing on sq
+	 */
+	public long castle(int player, int sq) {
+		return castleKeys[(player - 1) * squares + sq];
+	}
+
+
+
+	/**
+	 * @return key of player B being the side to move
+	 */
+	public long side() {
+		return sideKey;
+	}
+}
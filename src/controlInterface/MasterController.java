@@ -1,6 +1,14 @@
 package controlInterface;
 
 import gameEngine.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.SwingUtilities;
+
 import userInterface.FileIO;
 import userInterface.GUIView;
 
@@ -22,6 +30,17 @@ public class MasterController {
 	private boolean isAIGame = false;
 	private boolean isActive = false;
 	private boolean remoteClick = false;
+	private AtomicBoolean aiCancelled = new AtomicBoolean(false);	// cancels the AI turn in progress
+	
+	// runs AI thinking away from the event thread
+	private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "AI");
+			t.setDaemon(true);
+			return t;
+		}
+	});
 	
 	// error codes
 	private static final int NO_PIECE = -1;
@@ -159,6 +178,7 @@ public class MasterController {
 		attack(pieceSelected, id);
 		pieceSelected = Data.PLAYER_NONE;
 		checkWinState(id);
+		ponderAfterMove();
 	}
 
 
@@ -178,6 +198,20 @@ public class MasterController {
 		view.movePiece(pieceSelected, id);
 		pieceSelected = Data.PLAYER_NONE;
 		checkWinState(id);
+		ponderAfterMove();
+	}
+	
+	
+	
+	/**
+	 * restarts the AI's pondering on the position after the player's
+	 * move, a turn has several moves and the position pondered on
+	 * would otherwise stay the one the turn began with
+	 */
+	private void ponderAfterMove() {
+		if (isAIGame && state == Data.STATE_IN_GAME && !model.isAI(turn)){
+			model.startPondering();
+		}
 	}
 
 
@@ -214,6 +248,7 @@ public class MasterController {
 		}
 		
 		state = Data.STATE_END_GAME;
+		model.stopPondering();
 		
 		if (isOnlineGame){
 			remoteControl.disconnect();
@@ -415,6 +450,58 @@ public class MasterController {
 	
 	
 	
+	/**
+	 * @param cancelled - token of this AI turn
+	 * 
+	 * lets AI choose its next move on the AI thread, then plays it on
+	 * the event thread and asks for the next one, until AI ends its turn
+	 * nothing is played once the token is cancelled
+	 */
+	private void AITurn(final AtomicBoolean cancelled) {
+		final Game game = model;
+		
+		aiExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				final int selected = game.AISelect(false);
+				final int moved = game.AIMove(false);
+				if (cancelled.get()){
+					return;
+				}
+				
+				SwingUtilities.invokeLater(new Runnable() {
+					@Override
+					public void run() {
+						if (cancelled.get() || model != game || state != Data.STATE_IN_GAME){
+							return;
+						}
+						if (selected == -1){
+							toggleTurn(false);	// AI ended its turn
+							return;
+						}
+						leftClicked(selected);
+						leftClicked(moved);
+						if (state == Data.STATE_IN_GAME){
+							AITurn(cancelled);
+						}
+					}
+				});
+			}
+		});
+	}
+	
+	
+	
+	/**
+	 * cancels the AI turn in progress, if any
+	 */
+	private void cancelAITurn() {
+		aiCancelled.set(true);
+		model.cancelAI();
+	}
+	
+	
+	
 	/**
 	 * @param player
 	 * 
@@ -541,21 +628,36 @@ public class MasterController {
 		}
 		view.eraseAllAttackPaths();
 		pieceSelected = Data.PLAYER_NONE;
-		model.resetMoveCount();
+		model.endTurn();
 		
 		if (isAIGame && turn == Data.PLAYER_B){
+			model.stopPondering();
 			this.toggleActive(false);
-			this.AIActions(false);
-			toggleTurn(false);
+			aiCancelled = new AtomicBoolean(false);
+			this.AITurn(aiCancelled);
+		}else if (isAIGame){
+			model.startPondering();	// think on the player's time
 		}
 	}
 	
 	
 	
 	/**
-	 * handles new game menu selection
+	 * handles new game menu selection, an AI game is against the greedy AI
 	 */
 	public void newGame(boolean Ai) {
+		newGame(Ai, Data.AI_GREEDY);
+	}
+	
+	
+	
+	/**
+	 * @param Ai	 - true if B is played by an AI
+	 * @param aiMode - kind of AI playing B, one of the Data.AI_ modes
+	 * 
+	 * handles new game menu selection
+	 */
+	public void newGame(boolean Ai, int aiMode) {
 		if (isOnlineGame){
 			isOnlineGame = false;
 			remoteControl.disconnect();
@@ -566,7 +668,11 @@ public class MasterController {
 		view.reset();
 		view.showMessage(Data.MSG_PROCEDURES);
 		state = Data.STATE_NEWGAME;
+		model.stopPondering();
+		cancelAITurn();
 		model = new Game(Ai);
+		model.setAIMode(Data.PLAYER_B, aiMode);
+		model.setAIBudget(Data.PLAYER_B, Data.AI_TIME_LIMIT, 0);
 		isAIGame = Ai;
 	}
 	
@@ -618,7 +724,11 @@ public class MasterController {
 		view.toggleBoardVisibility(false, true);
 		
 		model.setTerrain(view.getTerrain());
-		model.startGame();
+		model.startGame(firstTurn);
+		
+		if (isAIGame && firstTurn == Data.PLAYER_A){
+			model.startPondering();
+		}
 	}
 
 
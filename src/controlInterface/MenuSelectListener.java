@@ -60,6 +60,12 @@ public class MenuSelectListener implements ActionListener {
 			controller.submitSetup();
 		}else if (Data.STR_AI_GAME.equals(action)){
 			controller.newGame(true);
+		}else if (Data.STR_SEARCH_AI_GAME.equals(action)){
+			controller.newGame(true, Data.AI_SEARCH);
+		}else if (Data.STR_MCTS_AI_GAME.equals(action)){
+			controller.newGame(true, Data.AI_MCTS);
+		}else if (Data.STR_BEAM_AI_GAME.equals(action)){
+			controller.newGame(true, Data.AI_BEAM);
 		}
 		
 	}
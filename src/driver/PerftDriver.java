@@ -0,0 +1,49 @@
+package driver;
+
+import gameEngine.Data;
+import gameEngine.Game;
+import gameEngine.Perft;
+
+import java.util.concurrent.ForkJoinPool;
+
+import userInterface.FileIO;
+
+import componentLibrary.Board;
+
+/**
+ * runs perft from the stock setup on the saved terrain
+ * 
+ * usage: PerftDriver depth [threads] [divide]
+ * threads greater than 1 counts the root moves in parallel
+ */
+public class PerftDriver {
+	
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		boolean divide = args.length > 2 && "divide".equals(args[2]);
+		
+		Game game = new Game(false);
+		game.setTerrain(new FileIO().readTerrainFile());
+		game.setupPieces(Data.PLAYER_A);
+		game.setupPieces(Data.PLAYER_B);
+		game.startGame(Data.PLAYER_A);
+		Board board = game.getBoard();
+		
+		long start = System.nanoTime();
+		long nodes;
+		if (divide) {
+			nodes = new Perft(board).divide(depth, System.out);
+		} else if (threads > 1) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			nodes = Perft.parallelPerft(board, depth, pool);
+			pool.shutdown();
+		} else {
+			nodes = new Perft(board).perft(depth);
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println("perft(" + depth + ") = " + nodes);
+		System.out.printf("%.3f s, %.0f nodes/s, %d threads%n", seconds, nodes / seconds, threads);
+	}
+}
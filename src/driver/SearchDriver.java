@@ -0,0 +1,50 @@
+package driver;
+
+import gameEngine.Data;
+import gameEngine.Game;
+import gameEngine.MaterialEvaluator;
+import gameEngine.ParallelSearch;
+import gameEngine.TranspositionTable;
+import userInterface.FileIO;
+
+import componentLibrary.Board;
+import componentLibrary.Move;
+
+
+/**
+ * searches the starting position of a stock game and reports the
+ * speed of each search thread
+ * 
+ * usage: SearchDriver [milliseconds] [threads] [depth]
+ */
+public class SearchDriver {
+	
+	public static void main(String[] args) {
+		long time = args.length > 0 ? Long.parseLong(args[0]) : 5000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		int depth = args.length > 2 ? Integer.parseInt(args[2]) : 63;
+		
+		Game game = new Game(false);
+		game.setTerrain(new FileIO().readTerrainFile());
+		game.setupPieces(Data.PLAYER_A);
+		game.setupPieces(Data.PLAYER_B);
+		game.startGame(Data.PLAYER_A);
+		Board board = game.getBoard();
+		
+		ParallelSearch search = new ParallelSearch(new MaterialEvaluator(), new TranspositionTable(64), threads);
+		int move = search.iterate(board, depth, time, 0);
+		search.shutdown();
+		
+		System.out.println("best " + Move.toString(move) + " score " + search.getBestScore()
+				+ " depth " + search.getCompletedDepth());
+		long[] nodes = search.getNodes();
+		double[] rates = search.getNodesPerSecond();
+		long total = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			System.out.printf("thread %d: %d nodes, %.0f nodes/s%n", i, nodes[i], rates[i]);
+			total += nodes[i];
+		}
+		System.out.printf("%.3f s, %.0f nodes/s total%n", search.getSeconds(), total / search.getSeconds());
+		System.out.printf("first move cutoffs: %.1f%%%n", 100 * search.getFirstMoveCutoffRate());
+	}
+}
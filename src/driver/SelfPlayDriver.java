@@ -0,0 +1,219 @@
+package driver;
+
+import gameEngine.AI;
+import gameEngine.BeamAI;
+import gameEngine.BeamSearch;
+import gameEngine.Data;
+import gameEngine.GameRunner;
+import gameEngine.MCTSAI;
+import gameEngine.SearchAI;
+import userInterface.FileIO;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+
+/**
+ * plays AI against AI without the user interface, several games at
+ * once, and reports the results and games played per second
+ * 
+ * usage: SelfPlayDriver [games] [threads] [ai A] [ai B] [milliseconds] [seed]
+ * where an ai is one of greedy, search, mcts or beam, game i is played from seed + i
+ *
+ * an ai may be followed by ':' and its own budget, which replaces the
+ * milliseconds: greedy:difficulty, search:n<nodes>, mcts:p<playouts> and
+ * beam:w<width> play the same game again from the same seed, while a
+ * plain number of milliseconds, as in search:250, depends on the machine
+ */
+public class SelfPlayDriver {
+	
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		final String aiA = args.length > 2 ? args[2] : "search";
+		final String aiB = args.length > 3 ? args[3] : "greedy";
+		final long time = args.length > 4 ? Long.parseLong(args[4]) : 100;
+		final long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+		
+		final int[] terrain = new FileIO().readTerrainFile();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		ArrayList<Future<GameRunner>> results = new ArrayList<Future<GameRunner>>(games);
+		long start = System.nanoTime();
+		
+		System.out.println(describe(aiA, time) + " (A) against " + describe(aiB, time) + " (B), seed " + seed);
+		for (int i = 0; i < games; i++) {
+			final int index = i;
+			results.add(pool.submit(new Callable<GameRunner>() {
+				public GameRunner call() {
+					GameRunner runner = new GameRunner(createAI(aiA), createAI(aiB), GameRunner.DEFAULT_MAX_TURNS, seed + index);
+					runner.getGame().setAIBudget(Data.PLAYER_A, timeLimit(aiA, time), nodeLimit(aiA));
+					runner.getGame().setAIBudget(Data.PLAYER_B, timeLimit(aiB, time), nodeLimit(aiB));
+					runner.play(terrain, Data.PLAYER_A);
+					return runner;
+				}
+			}));
+		}
+		
+		int[] wins = new int[3];	// draws, wins of A, wins of B
+		long turns = 0;
+		for (Future<GameRunner> result : results) {
+			GameRunner runner = result.get();
+			wins[Math.max(runner.getWinner(), 0)]++;
+			turns += runner.getTurns();
+		}
+		pool.shutdown();
+		double seconds = (System.nanoTime() - start) / 1e9;
+		
+		System.out.println(aiA + " (A) " + wins[Data.PLAYER_A] + ", " + aiB + " (B) " + wins[Data.PLAYER_B]
+				+ ", draws " + wins[0]);
+		System.out.printf("%.1f turns per game, %.3f s, %.2f games/s%n", (double) turns / games, seconds, games / seconds);
+	}
+	
+	
+	
+	/**
+	 * @param spec - greedy, search, mcts or beam, optionally followed by
+	 * 				 ':' and a budget as in the usage above
+	 * @return a single threaded AI that does not ponder, its time and
+	 * 			node budget are set apart, from timeLimit and nodeLimit
+	 */
+	static AI createAI(String spec) {
+		String name = name(spec);
+		char unit = unit(spec);
+
+		if (name.equals("search") && (unit == 't' || unit == 'n')) {
+			SearchAI ai = new SearchAI();
+			ai.threads = 1;
+			ai.ponder = false;
+			return ai;
+		}
+		if (name.equals("mcts") && (unit == 't' || unit == 'p')) {
+			MCTSAI ai = new MCTSAI();
+			ai.threads = 1;
+			return ai;
+		}
+		if (name.equals("beam") && (unit == 't' || unit == 'w')) {
+			BeamAI ai = new BeamAI();
+			if (unit == 'w') {
+				ai.width = (int) budget(spec, 0);
+			}
+			return ai;
+		}
+		if (name.equals("greedy") && unit == 't') {
+			AI ai = new AI();
+			if (spec.indexOf(':') >= 0) {
+				ai.difficulty = (int) budget(spec, 0);
+			}
+			return ai;
+		}
+		throw new IllegalArgumentException("unknown ai " + spec);
+	}
+
+
+
+	/**
+	 * @param spec - ai as given to createAI
+	 * @param time - milliseconds per move when spec has no budget
+	 * @return milliseconds the AI may think per move, 0 if its budget
+	 * 			is not timed
+	 */
+	static long timeLimit(String spec, long time) {
+		return unit(spec) == 't' ? budget(spec, time) : 0;
+	}
+
+
+
+	/**
+	 * @param spec - ai as given to createAI
+	 * @return nodes or playouts the AI may use per move, 0 if its budget
+	 * 			is not counted in them
+	 */
+	static long nodeLimit(String spec) {
+		char unit = unit(spec);
+		return unit == 'n' || unit == 'p' ? budget(spec, 0) : 0;
+	}
+
+
+
+	/**
+	 * @param spec - ai as given to createAI
+	 * @param time - milliseconds per move when spec has no budget
+	 * @return the kind and budget of the AI createAI would make, and
+	 * 			whether its games can be replayed from their seed
+	 *
+	 * no AI is made, so a spec can be checked and printed without the
+	 * table of a search AI
+	 */
+	static String describe(String spec, long time) {
+		String name = name(spec);
+		char unit = unit(spec);
+		long value = budget(spec, time);
+
+		if (name.equals("search") && (unit == 't' || unit == 'n')) {
+			return unit == 't' ? "search " + value + " ms/move (timed, not reproducible)"
+					: "search " + value + " nodes/move (reproducible)";
+		}
+		if (name.equals("mcts") && (unit == 't' || unit == 'p')) {
+			return unit == 't' ? "mcts " + value + " ms/move (timed, not reproducible)"
+					: "mcts " + value + " playouts/move (reproducible)";
+		}
+		if (name.equals("beam") && (unit == 't' || unit == 'w')) {
+			return unit == 't' ? "beam width " + BeamSearch.DEFAULT_WIDTH + ", " + value + " ms/turn (timed, not reproducible)"
+					: "beam width " + value + ", untimed (reproducible)";
+		}
+		if (name.equals("greedy") && unit == 't') {
+			long difficulty = spec.indexOf(':') >= 0 ? value : AI.DEFAULT_DIFFICULTY;
+			return "greedy difficulty " + difficulty + " (reproducible)";
+		}
+		throw new IllegalArgumentException("unknown ai " + spec);
+	}
+
+
+
+	/**
+	 * @param spec
+	 * @return the kind of AI, the part of spec before any ':'
+	 */
+	private static String name(String spec) {
+		int colon = spec.indexOf(':');
+		return colon < 0 ? spec : spec.substring(0, colon);
+	}
+
+
+
+	/**
+	 * @param spec
+	 * @return the letter before the number of the budget, 't' if the
+	 * 			budget is in milliseconds or spec has none
+	 */
+	private static char unit(String spec) {
+		int colon = spec.indexOf(':');
+		if (colon < 0 || colon + 1 == spec.length() || Character.isDigit(spec.charAt(colon + 1))) {
+			return 't';
+		}
+		return spec.charAt(colon + 1);
+	}
+
+
+
+	/**
+	 * @param spec
+	 * @param time - budget of a spec without one
+	 * @return the number of the budget of spec
+	 */
+	private static long budget(String spec, long time) {
+		int colon = spec.indexOf(':');
+		if (colon < 0) {
+			return time;
+		}
+		String budget = spec.substring(colon + 1 + (unit(spec) == 't' ? 0 : 1));
+		try {
+			return Long.parseLong(budget);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad budget in ai " + spec);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package driver;
+
+import gameEngine.Data;
+import gameEngine.Game;
+import gameEngine.Tablebase;
+import userInterface.FileIO;
+
+import java.io.File;
+
+import componentLibrary.Board;
+
+
+/**
+ * solves the tablebase of a material on the stock terrain, with the
+ * castles where a stock game puts them, into the tablebase directory
+ * 
+ * usage: TablebaseDriver [pieces of A] [pieces of B] [threads]
+ * where pieces are given as digits of Data.PIECE_* types, "0" being a King
+ */
+public class TablebaseDriver {
+	
+	public static void main(String[] args) throws Exception {
+		int[] piecesA = parse(args.length > 0 ? args[0] : "0");
+		int[] piecesB = parse(args.length > 1 ? args[1] : "0");
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+		
+		Game game = new Game(false);
+		game.setTerrain(new FileIO().readTerrainFile());
+		game.setupPieces(Data.PLAYER_A);
+		game.setupPieces(Data.PLAYER_B);
+		Board board = game.getBoard();
+		
+		long start = System.nanoTime();
+		Tablebase table = Tablebase.generate(board, piecesA, piecesB, new File(Data.DIR_TABLEBASE), threads);
+		System.out.printf("%s: %d positions, %.1f s%n", table.getMaterial(), table.getPositions(),
+				(System.nanoTime() - start) / 1e9);
+	}
+	
+	
+	
+	/**
+	 * @param pieces - digits of piece types
+	 * @return the types
+	 */
+	private static int[] parse(String pieces) {
+		int[] types = new int[pieces.length()];
+		for (int i = 0; i < types.length; i++) {
+			types[i] = pieces.charAt(i) - '0';
+		}
+		return types;
+	}
+}
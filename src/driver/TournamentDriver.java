@@ -0,0 +1,66 @@
+package driver;
+
+import gameEngine.AI;
+import gameEngine.AIFactory;
+import gameEngine.Data;
+import gameEngine.Tournament;
+import userInterface.FileIO;
+
+import java.util.ArrayList;
+
+
+/**
+ * plays a match between two AI configurations on every core and reports
+ * the Elo difference, stopping once the SPRT of 0 against 5 Elo decides
+ * 
+ * usage: TournamentDriver [games] [threads] [ai] [opponent] [seed] [terrain files...]
+ * where pair i of games is played from seed + i, and an ai is
+ * greedy[:difficulty], or search, mcts or beam followed by [:milliseconds],
+ * or search:n<nodes>, mcts:p<playouts> or beam:w<width> for a match that
+ * plays the same games again from the same seed
+ */
+public class TournamentDriver {
+	
+	private static final long DEFAULT_TIME = 100;	// milliseconds per move of an ai without a budget
+	
+	public static void main(String[] args) throws Exception {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		String first = args.length > 2 ? args[2] : "search:20";
+		String second = args.length > 3 ? args[3] : "greedy";
+		long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+		
+		FileIO io = new FileIO();
+		ArrayList<int[]> maps = new ArrayList<int[]>();
+		for (int i = 5; i < args.length; i++) {
+			maps.add(io.readTerrainFile(args[i]));
+		}
+		if (maps.isEmpty()) {
+			maps.add(io.readTerrainFile(Data.FILE_TERRAIN));
+		}
+		
+		Tournament tournament = new Tournament(factory(first), factory(second), maps, threads);
+		tournament.setSeed(seed);
+		System.out.println(SelfPlayDriver.describe(first, DEFAULT_TIME) + " against "
+				+ SelfPlayDriver.describe(second, DEFAULT_TIME) + ", " + threads + " threads, "
+				+ maps.size() + " maps, seed " + tournament.getSeed());
+		tournament.run(games, Math.max(1, games / 20), System.out);
+	}
+	
+	
+	
+	/**
+	 * @param spec - name of the AI, optionally followed by ':' and its budget
+	 * @return a factory of single threaded AIs that do not ponder
+	 */
+	static AIFactory factory(final String spec) {
+		SelfPlayDriver.describe(spec, DEFAULT_TIME);	// fails now on a bad spec
+		return new AIFactory() {
+			public AI create() {
+				AI ai = SelfPlayDriver.createAI(spec);
+				ai.setBudget(SelfPlayDriver.timeLimit(spec, DEFAULT_TIME), SelfPlayDriver.nodeLimit(spec));
+				return ai;
+			}
+		};
+	}
+}
@@ -2,6 +2,7 @@ package gameEngine;
 
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 import componentLibrary.*;
 
@@ -12,10 +13,17 @@ import componentLibrary.*;
  */
 public class AI extends Player {
 	
+	public static final int DEFAULT_DIFFICULTY = 13;
+	
 	public Player opponent;
+	public Board board;					// board of the game played
+	public int player = Data.PLAYER_B;	// player this AI plays
 	private Piece selected = null;
 	private int movesMade = 0;
-	private int difficulty = 13;
+	public int difficulty = DEFAULT_DIFFICULTY;	// moves tried in a turn before it is ended
+	public int setupIterations = 2000;	// swaps tried to improve the setup, 0 for a random setup
+	private int[] setupPlan = null;		// destination of each piece, planned on the first setup move
+	public SplittableRandom random = new SplittableRandom();	// split from the game's seed when joined to a game
 	
 	
 	
@@ -27,6 +35,8 @@ public class AI extends Player {
 		if (isSetup) {
 			if (movesMade == pieceCount) {
 				movesMade = 0;
+				selected = null;
+				setupPlan = null;
 				return -1;
 			}
 			selected = pieces.get(movesMade);
@@ -54,23 +64,19 @@ public class AI extends Player {
 	 * @return id of move destination
 	 */
 	public int moveSelectedPiece(boolean isSetup) {
+		if (selected == null) {
+			return -1; // nothing was selected, the setup or turn is over
+		}
 		movesMade++;
 
 		if (isSetup) {
-			if (selected.isRoyal()) {
-				return selected.getId(); // do not move royal
-			} else {
-				int offset = (int) (Math.random() * Data.BOUNDARY_A);
-				int dest = Data.BOUNDARY_A + offset; // prepare a randomized value for backup
-
-				while (selected.getBoard().getPieceAt(dest) != null
-					|| selected.getBoard().getTerrain(dest) != Data.TERRAIN_DEFAULT) {
-					offset = (int) (Math.random() * Data.BOUNDARY_A);
-					dest = Data.BOUNDARY_A + offset; // if the random place cannot be moved to, keep generating
-				}
-
-				return Data.BOUNDARY_A + offset;
+			if (setupPlan == null) {
+				SetupPlanner planner = player == Data.PLAYER_A
+						? new SetupPlanner(selected.getBoard(), 0, Data.BOUNDARY_A)
+						: new SetupPlanner(selected.getBoard(), Data.BOUNDARY_A, Data.P_COUNT);
+				setupPlan = planner.plan(pieces, castle, random, setupIterations);
 			}
+			return setupPlan[movesMade - 1]; // royals stay where they are
 		}
 
 		if (movesMade == pieceCount) {
@@ -82,6 +88,30 @@ public class AI extends Player {
 	
 	
 	
+	/**
+	 * @param timeLimit - milliseconds the AI may think per move, 0 for no limit
+	 * @param nodeLimit - positions the AI may visit per move, 0 for no limit
+	 * 
+	 * sets how much the AI may think, the greedy AI does not search
+	 * and is held back by its difficulty instead
+	 */
+	public void setBudget(long timeLimit, long nodeLimit) {
+		// this AI does not search
+	}
+	
+	
+	
+	/**
+	 * abandons any thinking in progress, the AI ends its turns at once
+	 * afterwards and releases its threads once the call in progress
+	 * returns, may be called from any thread
+	 */
+	public void cancel() {
+		// this AI does not think long enough to be cancelled
+	}
+	
+	
+	
 	/**
 	 * @return - the "best" piece to be moved
 	 */
@@ -163,7 +193,7 @@ public class AI extends Player {
 		if (bestMove != 0) {
 			return bestMove;
 		} else {
-			int randomIndex = (int) (Math.random() * p.getReachablePoint().size());
+			int randomIndex = random.nextInt(p.getReachablePoint().size());
 			Point randomMove = p.getReachablePoint().get(randomIndex);
 			return randomMove.x + p.getParentBoardDim() * randomMove.y;
 		}
@@ -0,0 +1,13 @@
+package gameEngine;
+
+
+/**
+ * builds fresh AIs of one configuration, one for each game played
+ */
+public interface AIFactory {
+
+	/**
+	 * @return a new AI, not yet joined to a game
+	 */
+	AI create();
+}
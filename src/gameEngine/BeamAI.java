@@ -0,0 +1,98 @@
+package gameEngine;
+
+import componentLibrary.*;
+
+
+/**
+ * AI that plans its whole turn at once with a beam search and then
+ * plays the planned moves one by one, setup is left to the plain AI
+ */
+public class BeamAI extends AI {
+
+	public static final long DEFAULT_TIME = 1000;
+
+	public long timeLimit = DEFAULT_TIME;	// milliseconds per turn, 0 for no limit
+	public int width = BeamSearch.DEFAULT_WIDTH;	// partial turns kept at each length
+	public Evaluator evaluator = new IncrementalEvaluator();
+	private volatile BeamSearch search;		// the plan being made, null when not planning
+	private volatile boolean cancelled = false;
+	private int[] plan = null;				// moves of the current turn, null before it is planned
+	private int planned = 0;				// moves of plan already played
+	private int pending = Move.NONE;
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#selectPiece(boolean)
+	 */
+	@Override
+	public int selectPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.selectPiece(isSetup);
+		}
+
+		pending = Move.NONE;
+		if (plan == null && !cancelled) {
+			BeamSearch planner = new BeamSearch(new Board(board), evaluator, width);
+			search = planner;
+			if (cancelled) {
+				planner.stop();
+			}
+			plan = planner.plan(timeLimit);
+			planned = 0;
+			search = null;
+		}
+		if (plan == null || planned >= plan.length || cancelled) {
+			plan = null;
+			return -1;
+		}
+
+		pending = plan[planned];
+		return Move.source(pending);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#moveSelectedPiece(boolean)
+	 */
+	@Override
+	public int moveSelectedPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.moveSelectedPiece(isSetup);
+		}
+
+		if (pending == Move.NONE) {
+			return -1;
+		}
+		planned++;
+		return Move.destination(pending);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#setBudget(long, long)
+	 *
+	 * the time is for the whole turn, the nodes of a plan are bounded
+	 * by its width instead
+	 */
+	@Override
+	public void setBudget(long timeLimit, long nodeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#cancel()
+	 */
+	@Override
+	public void cancel() {
+		cancelled = true;
+		BeamSearch current = search;
+		if (current != null) {
+			current.stop();
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package gameEngine;
+
+import java.util.Arrays;
+
+import componentLibrary.*;
+
+
+/**
+ * plans a whole turn of the side to move by beam search
+ *
+ * partial turns grow one piece move at a time, and only the best width
+ * of them by evaluation are grown further. partial turns reaching the
+ * same position in another order hash the same, since the board hash
+ * covers which pieces have moved, and only one of them is kept. the
+ * best partial turn seen at any length is the plan, so the turn may
+ * end early
+ *
+ * every buffer is allocated up front, a plan takes at most one move
+ * per piece times width times the moves of one position evaluations
+ */
+public class BeamSearch {
+
+	public static final int DEFAULT_WIDTH = 16;
+
+	private static final int CHECK_INTERVAL = 255;	// evaluations between deadline checks
+
+	private Board board;
+	private Evaluator evaluator;
+	private int width;
+	private int maxLength;			// moves in a turn at most
+	private int[] buffer;			// moves of the position being expanded
+
+	private int[][] beam;			// moves of each partial turn kept, by rank
+	private int[][] next;			// the same for the partial turns being built
+	private int beamSize;
+	private long[] candidates;		// score and index of each expansion, sortable
+	private int[] parents;			// partial turn each expansion grows
+	private int[] candidateMoves;	// move each expansion adds
+	private long[] hashes;			// position each expansion reaches
+	private long[] kept;			// open addressed set of the positions of the new beam
+	private boolean keptZero;		// the set holds hash 0, which marks empty slots
+
+	private int[] plan = new int[0];
+	private int planScore;
+	private long evaluations;
+	private long deadline;
+	private boolean stopped;
+	private volatile boolean abort;	// set by another thread to end planning early
+
+
+
+	/**
+	 * @param board		- position to plan from, changed while planning
+	 * 					  and restored afterwards
+	 * @param evaluator
+	 * @param width		- partial turns kept at each length
+	 */
+	public BeamSearch(Board board, Evaluator evaluator, int width) {
+		this.board = board;
+		this.evaluator = evaluator;
+		this.width = Math.max(1, width);
+		this.maxLength = Data.PIECE_COUNT;
+
+		int capacity = MoveGenerator.capacity(board);
+		this.buffer = new int[capacity];
+		this.beam = new int[this.width][maxLength];
+		this.next = new int[this.width][maxLength];
+		this.candidates = new long[this.width * capacity];
+		this.parents = new int[candidates.length];
+		this.candidateMoves = new int[candidates.length];
+		this.hashes = new long[candidates.length];
+		this.kept = new long[Integer.highestOneBit(2 * this.width - 1) << 1];	// at most half full
+	}
+
+
+
+	/**
+	 * @param timeLimit - milliseconds to plan for, 0 for no limit
+	 * @return moves of the best turn found for the side to move, without
+	 * 			the closing Move.END_TURN, empty if ending the turn at
+	 * 			once is best or the game is over
+	 *
+	 * a plan cut short by the time limit is the best found so far
+	 */
+	public int[] plan(long timeLimit) {
+		deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : 0;
+		stopped = false;
+		evaluations = 0;
+		int side = board.getSideToMove();
+		plan = new int[0];
+		planScore = evaluator.evaluate(board, side);
+		if (board.getWinner() != Data.PLAYER_NONE) {
+			return plan;
+		}
+
+		beamSize = 1;
+		for (int length = 1; length <= maxLength && beamSize > 0 && !stopped; length++) {
+			int count = expand(side, length - 1);
+			select(count, length);
+		}
+		return plan;
+	}
+
+
+
+	/**
+	 * @param side		- player making the turn
+	 * @param length	- moves in each partial turn of the beam
+	 * @return number of expansions written to the candidate arrays
+	 *
+	 * tries every move of every partial turn in the beam, and keeps the
+	 * best one seen as the plan
+	 */
+	private int expand(int side, int length) {
+		int count = 0;
+
+		for (int b = 0; b < beamSize && !stopped; b++) {
+			int[] moves = beam[b];
+			for (int i = 0; i < length; i++) {
+				board.makeMove(moves[i]);
+			}
+
+			int n = MoveGenerator.generate(board, side, buffer, false);
+			for (int i = 0; i < n; i++) {
+				board.makeMove(buffer[i]);
+				int score = board.getWinner() == Data.PLAYER_NONE
+						? evaluator.evaluate(board, side)
+						: board.getWinner() == side ? Search.WIN - length - 1 : length + 1 - Search.WIN;
+				long hash = board.getHash();
+				board.unmakeMove();
+
+				// highest score first once sorted, ties in generation order
+				candidates[count] = ((long) -score << 32) | count;
+				parents[count] = b;
+				candidateMoves[count] = buffer[i];
+				hashes[count] = hash;
+				count++;
+
+				if (score > planScore) {
+					planScore = score;
+					plan = Arrays.copyOf(moves, length + 1);
+					plan[length] = buffer[i];
+				}
+				if (abort || (++evaluations & CHECK_INTERVAL) == 0 && deadline > 0 && System.nanoTime() - deadline >= 0) {
+					stopped = true;
+					break;
+				}
+			}
+
+			for (int i = 0; i < length; i++) {
+				board.unmakeMove();
+			}
+		}
+		return count;
+	}
+
+
+
+	/**
+	 * @param count		- expansions in the candidate arrays
+	 * @param length	- moves in each new partial turn
+	 *
+	 * makes the best width expansions with distinct positions the new
+	 * beam, a won turn is not grown any further
+	 */
+	private void select(int count, int length) {
+		Arrays.sort(candidates, 0, count);
+		Arrays.fill(kept, 0);
+		keptZero = false;
+		int size = 0;
+
+		for (int i = 0; i < count && size < width; i++) {
+			int c = (int) candidates[i];
+			int score = (int) -(candidates[i] >> 32);
+			if (score > Search.WIN - Search.MAX_PLY || !keep(hashes[c])) {
+				continue;
+			}
+			System.arraycopy(beam[parents[c]], 0, next[size], 0, length - 1);
+			next[size][length - 1] = candidateMoves[c];
+			size++;
+		}
+
+		int[][] swap = beam;
+		beam = next;
+		next = swap;
+		beamSize = size;
+	}
+
+
+
+	/**
+	 * @param hash - position of a partial turn
+	 * @return true if hash was added to the kept positions, false if
+	 * 			it was there already
+	 *
+	 * the set holds at most width positions in twice as many slots, so
+	 * probing always ends at an empty slot
+	 */
+	private boolean keep(long hash) {
+		if (hash == 0) {
+			boolean added = !keptZero;
+			keptZero = true;
+			return added;
+		}
+		int mask = kept.length - 1;
+		int i = (int) (hash ^ (hash >>> 32)) & mask;
+		while (kept[i] != 0) {
+			if (kept[i] == hash) {
+				return false;
+			}
+			i = (i + 1) & mask;
+		}
+		kept[i] = hash;
+		return true;
+	}
+
+
+
+	/**
+	 * @return score of the last plan for the side it was made for
+	 */
+	public int getPlanScore() {
+		return planScore;
+	}
+
+
+
+	/**
+	 * @return positions evaluated by the last plan
+	 */
+	public long getEvaluations() {
+		return evaluations;
+	}
+
+
+
+	/**
+	 * ends a running plan from another thread as if it ran out of time
+	 */
+	public void stop() {
+		abort = true;
+	}
+
+
+
+	/**
+	 * @return partial turns kept at each length
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+
+
+	/**
+	 * @return the evaluator scoring the partial turns
+	 */
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+}
@@ -37,6 +37,26 @@ public final class Data {
 	
 	public static final int BOUNDARY_B = BOUNDARY_A-1;
 	
+	public static final int PIECE_COUNT = 13;
+	
+	public static final int PIECE_KING = 0;
+	
+	public static final int PIECE_DUKE = 1;
+	
+	public static final int PIECE_PRINCE = 2;
+	
+	public static final int PIECE_KNIGHT = 3;
+	
+	public static final int PIECE_SERGEANT = 4;
+	
+	public static final int PIECE_SQUIRE = 5;
+	
+	public static final int PIECE_ARCHER = 6;
+	
+	public static final int PIECE_PIKEMAN = 7;
+	
+	public static final int PIECE_TYPES = 8;
+	
 	public static final Dimension MAIN_FRAME_DIM = new Dimension (863, 859);
 	
 	public static final Dimension BOARD_DIM = new Dimension (850, 850);
@@ -67,6 +87,18 @@ public final class Data {
 	
 	
 	
+	public static final int AI_GREEDY = 0;
+	
+	public static final int AI_SEARCH = 1;
+	
+	public static final int AI_MCTS = 2;
+	
+	public static final int AI_BEAM = 3;
+	
+	public static final long AI_TIME_LIMIT = 1000;	// milliseconds the AI of a GUI game thinks per move
+	
+	
+	
 	public static final Color COLOR_MOUNTAIN = new Color(0, 100, 0);
 	
 	public static final Color COLOR_WETLAND = new Color(220, 220, 220);
@@ -97,6 +129,12 @@ public final class Data {
 	
 	public static final String STR_AI_GAME = "AI Game";
 	
+	public static final String STR_SEARCH_AI_GAME = "Search AI Game";
+	
+	public static final String STR_MCTS_AI_GAME = "Monte Carlo AI Game";
+	
+	public static final String STR_BEAM_AI_GAME = "Beam AI Game";
+	
 	
 	
 	public static final String STR_TERRAIN = "Terrain";
@@ -126,6 +164,8 @@ public final class Data {
 	
 	public static final String FILE_GAME = "saves/feudal_game.txt";
 	
+	public static final String DIR_TABLEBASE = "saves/tablebase";
+	
 	
 	
 	public static final String MSG_NOT_IMPLEMENTED = "This feature is yet to be implemented.";
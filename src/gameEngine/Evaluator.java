@@ -0,0 +1,17 @@
+package gameEngine;
+
+import componentLibrary.Board;
+
+
+/**
+ * scores positions for the search
+ */
+public interface Evaluator {
+
+	/**
+	 * @param board
+	 * @param player - player the score is seen from
+	 * @return score of the position, positive if player is better off
+	 */
+	int evaluate(Board board, int player);
+}
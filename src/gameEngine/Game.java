@@ -4,6 +4,7 @@
 package gameEngine;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
 
 import componentLibrary.*;
 
@@ -18,31 +19,79 @@ public class Game {
 	private Board board;
 	private Player playerA;
 	private Player playerB;
+	private long seed;
+	private SplittableRandom random;	// source of every AI's randomness
 	
 	
 	/**
 	 * Constructor, creates a board and two players
+	 * B is played by the greedy AI if Ai, a stronger AI is
+	 * given to the constructor taking the AIs
 	 */
 	public Game(boolean Ai) {
+		this(null, Ai ? new AI() : null);
+	}
+	
+	
+	
+	/**
+	 * @param aiA - AI playing A, null for a human player
+	 * @param aiB - AI playing B, null for a human player
+	 * 
+	 * creates a board and two players, either of which may be an AI
+	 */
+	public Game(AI aiA, AI aiB) {
+		this(aiA, aiB, System.nanoTime());
+	}
+	
+	
+	
+	/**
+	 * @param aiA  - AI playing A, null for a human player
+	 * @param aiB  - AI playing B, null for a human player
+	 * @param seed - seed of the AIs' randomness, a game played again
+	 * 				 from the same seed makes the same moves
+	 */
+	public Game(AI aiA, AI aiB, long seed) {
+		this.seed = seed;
+		random = new SplittableRandom(seed);
 		board = new Board(Data.DIMENSION);
-		playerA = new Player();
-		if (Ai){
-			playerB = new AI();
-			((AI)playerB).opponent = playerA;
-		}else{
-			playerB = new Player();
+		playerA = aiA == null ? new Player() : aiA;
+		playerB = aiB == null ? new Player() : aiB;
+		if (aiA != null) {
+			joinAI(aiA, Data.PLAYER_A, playerB);
+		}
+		if (aiB != null) {
+			joinAI(aiB, Data.PLAYER_B, playerA);
 		}
 	}
+	
+	
+	
+	/**
+	 * @param ai
+	 * @param player   - player ai plays
+	 * @param opponent
+	 */
+	private void joinAI(AI ai, int player, Player opponent) {
+		ai.player = player;
+		ai.opponent = opponent;
+		ai.board = board;
+		ai.random = random.split();
+	}
 
 	
 	
 	/**
+	 * @param firstTurn - player to move first
+	 * 
 	 * called when the game transitions into in game state
 	 * updates all attack paths and reset move count of all pieces
 	 */
-	public void startGame() {
+	public void startGame(int firstTurn) {
 		board.updateAttack();
 		board.resetMoveCount();
+		board.setSideToMove(firstTurn);
 	}
 
 	
@@ -287,6 +336,16 @@ public class Game {
 	
 	
 	
+	/**
+	 * ends the current turn, all pieces could move again
+	 * and the other player is to move
+	 */
+	public void endTurn() {
+		board.endTurn();
+	}
+	
+	
+	
 	/**
 	 * @param id - source id
 	 * @return list of reachable positions by piece at id
@@ -297,6 +356,23 @@ public class Game {
 	
 	
 	
+	/**
+	 * @param id - source id
+	 * @return moves the piece at id needs to reach the enemy castle
+	 * 			green if nothing stood in its way,
+	 * 			DistanceFields.UNREACHABLE if it never could or there is no piece
+	 */
+	public int getMovesToEnemyCastle(int id) {
+		Piece p = board.getPieceAt(id);
+		if (p == null) {
+			return DistanceFields.UNREACHABLE;
+		}
+		DistanceFields fields = DistanceFields.forBoard(board);
+		return fields.distance(RayTable.classOf(p.getType()), p.getPlayer(), 3 - p.getPlayer(), id);
+	}
+	
+	
+	
 	/**
 	 * @param id - source id
 	 * @return returns terrain at id
@@ -307,6 +383,24 @@ public class Game {
 	
 	
 	
+	/**
+	 * @return the board of the game
+	 */
+	public Board getBoard() {
+		return board;
+	}
+	
+	
+	
+	/**
+	 * @return seed the game was created with
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	
+	
 	/**
 	 * saves the state of the game
 	 */
@@ -316,12 +410,121 @@ public class Game {
 	
 	
 	
+	/**
+	 * @param player - player played by the AI
+	 * @param mode	 - Data.AI_GREEDY, Data.AI_SEARCH, Data.AI_MCTS or Data.AI_BEAM
+	 * 
+	 * replaces the AI of player by a fresh one of the given kind, keeping
+	 * its pieces, does nothing if player is not an AI
+	 * the replaced AI is cancelled first, which releases its threads
+	 */
+	public void setAIMode(int player, int mode) {
+		if (!isAI(player)) {
+			return;
+		}
+		AI ai;
+		if (mode == Data.AI_SEARCH) {
+			ai = new SearchAI();
+		} else if (mode == Data.AI_MCTS) {
+			ai = new MCTSAI();
+		} else if (mode == Data.AI_BEAM) {
+			ai = new BeamAI();
+		} else {
+			ai = new AI();
+		}
+		
+		Player old = getPlayer(player);
+		((AI) old).cancel();
+		ai.pieces = old.pieces;
+		ai.castle = old.castle;
+		ai.pieceCount = old.pieceCount;
+		ai.royalCount = old.royalCount;
+		if (player == Data.PLAYER_A) {
+			playerA = ai;
+			joinAI(ai, player, playerB);
+			if (playerB instanceof AI) {
+				((AI) playerB).opponent = ai;
+			}
+		} else {
+			playerB = ai;
+			joinAI(ai, player, playerA);
+			if (playerA instanceof AI) {
+				((AI) playerA).opponent = ai;
+			}
+		}
+	}
+	
+	
+	
+	/**
+	 * @param player	- player played by the AI
+	 * @param timeLimit	- milliseconds the AI may think per move, 0 for no limit
+	 * @param nodeLimit	- positions the AI may visit per move, 0 for no limit
+	 * 
+	 * sets how much the AI of player may search, does nothing if player
+	 * is not an AI, a Monte Carlo AI counts playouts as nodes
+	 */
+	public void setAIBudget(int player, long timeLimit, long nodeLimit) {
+		if (isAI(player)) {
+			((AI) getPlayer(player)).setBudget(timeLimit, nodeLimit);
+		}
+	}
+	
+	
+	
+	/**
+	 * lets the AI search on the opponent's turn, from the current position
+	 * called again after each move of the opponent, any pondering on the
+	 * position before it is stopped first
+	 * does nothing if the AI cannot ponder
+	 */
+	public void startPondering() {
+		if (playerB instanceof SearchAI) {
+			((SearchAI) playerB).startPondering();
+		}
+	}
+	
+	
+	
+	/**
+	 * ends any search the AI runs on the opponent's turn
+	 */
+	public void stopPondering() {
+		if (playerB instanceof SearchAI) {
+			((SearchAI) playerB).stopPondering();
+		}
+	}
+	
+	
+	
+	/**
+	 * abandons the AI's thinking, may be called from any thread
+	 */
+	public void cancelAI() {
+		if (playerB instanceof AI) {
+			((AI) playerB).cancel();
+		}
+	}
+	
+	
+	
 	/**
 	 * @param isSetup
 	 * @return the id AI selected
 	 */
 	public int AISelect(boolean isSetup) {
-		return ((AI)playerB).selectPiece(isSetup);
+		return AISelect(Data.PLAYER_B, isSetup);
+	}
+	
+	
+	
+	/**
+	 * @param player  - player played by the AI
+	 * @param isSetup
+	 * @return the id AI selected
+	 */
+	public int AISelect(int player, boolean isSetup) {
+		return ((AI)getPlayer(player)).selectPiece(isSetup);
 	}
 	
 
@@ -331,7 +534,38 @@ public class Game {
 	 * @return the id AI moved to
 	 */
 	public int AIMove(boolean isSetup) {
-		return ((AI)playerB).moveSelectedPiece(isSetup);
+		return AIMove(Data.PLAYER_B, isSetup);
+	}
+	
+	
+	
+	/**
+	 * @param player  - player played by the AI
+	 * @param isSetup
+	 * @return the id AI moved to
+	 */
+	public int AIMove(int player, boolean isSetup) {
+		return ((AI)getPlayer(player)).moveSelectedPiece(isSetup);
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return true if player is played by an AI
+	 */
+	public boolean isAI(int player) {
+		return getPlayer(player) instanceof AI;
+	}
+	
+	
+	
+	/**
+	 * @param player
+	 * @return player A or B
+	 */
+	private Player getPlayer(int player) {
+		return player == Data.PLAYER_A ? playerA : playerB;
 	}
 
 	
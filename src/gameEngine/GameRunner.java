@@ -0,0 +1,207 @@
+package gameEngine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import componentLibrary.Board;
+
+
+/**
+ * plays a whole game between two AIs straight against Game, the way
+ * MasterController would with both players clicking through the AI
+ *
+ * the AIs must be fresh, each runner plays one game
+ */
+public class GameRunner {
+
+	public static final int DEFAULT_MAX_TURNS = 200;
+
+	private static final int MAX_ACTIONS = 2 * Data.PIECE_COUNT + 2;	// AI answers per turn before it is ended anyway
+
+	private Game game;
+	private AI aiA;
+	private AI aiB;
+	private int maxTurns;
+	private AtomicBoolean cancelled = new AtomicBoolean(false);	// ends the game once set, may be shared
+	private int winner = Data.PLAYER_NONE;
+	private int turns;
+	private int moves;
+
+
+
+	/**
+	 * @param aiA		- AI playing A
+	 * @param aiB		- AI playing B
+	 * @param maxTurns	- turns after which the game is called a draw
+	 */
+	public GameRunner(AI aiA, AI aiB, int maxTurns) {
+		this(aiA, aiB, maxTurns, System.nanoTime());
+	}
+
+
+
+	/**
+	 * @param aiA		- AI playing A
+	 * @param aiB		- AI playing B
+	 * @param maxTurns	- turns after which the game is called a draw
+	 * @param seed		- seed of the game, see Game
+	 */
+	public GameRunner(AI aiA, AI aiB, int maxTurns, long seed) {
+		this.game = new Game(aiA, aiB, seed);
+		this.aiA = aiA;
+		this.aiB = aiB;
+		this.maxTurns = maxTurns;
+	}
+
+
+
+	/**
+	 * @param cancelled - flag ending the game as a draw once set, may be
+	 * 					  shared by the runners of a match to stop them all
+	 *
+	 * the flag is checked before every answer asked of an AI, so a game
+	 * ends once the move being searched when it is set is found
+	 */
+	public void setCancelFlag(AtomicBoolean cancelled) {
+		this.cancelled = cancelled;
+	}
+
+
+
+	/**
+	 * @param terrain	- terrain of the map, as read by FileIO
+	 * @param firstTurn	- player to move first
+	 * @return the winner, Data.PLAYER_NONE for a draw or a cancelled game
+	 */
+	public int play(int[] terrain, int firstTurn) {
+		game.setTerrain(terrain);
+		game.setupPieces(Data.PLAYER_A);
+		game.setupPieces(Data.PLAYER_B);
+		setup(Data.PLAYER_A);
+		setup(Data.PLAYER_B);
+		game.startGame(firstTurn);
+
+		Board board = game.getBoard();
+		for (turns = 0; turns < maxTurns && !cancelled.get(); turns++) {
+			winner = playTurn(board.getSideToMove());
+			if (winner != Data.PLAYER_NONE) {
+				turns++;
+				break;
+			}
+			game.endTurn();
+		}
+		aiA.cancel();	// releases the threads of the AIs
+		aiB.cancel();
+		return winner;
+	}
+
+
+
+	/**
+	 * @param player
+	 *
+	 * lets the AI of player place its pieces
+	 */
+	private void setup(int player) {
+		int selected = game.AISelect(player, true);
+		int moved = game.AIMove(player, true);
+
+		while (selected != -1 && !cancelled.get()) {
+			if (selected != moved && !game.isPiece(moved) && !game.isCastle(moved)) {
+				game.freeMoveItem(selected, moved, player);
+			}
+			selected = game.AISelect(player, true);
+			moved = game.AIMove(player, true);
+		}
+	}
+
+
+
+	/**
+	 * @param player - player to move
+	 * @return the winner if the turn ended the game, else Data.PLAYER_NONE
+	 */
+	private int playTurn(int player) {
+		for (int i = 0; i < MAX_ACTIONS && !cancelled.get(); i++) {
+			int selected = game.AISelect(player, false);
+			int moved = game.AIMove(player, false);
+			if (selected == -1) {
+				break;
+			}
+			if (game.getPiecePlayer(selected) != player || game.isPieceMoved(selected)) {
+				continue; // the click would not select a piece able to move
+			}
+
+			int target = game.getPiecePlayer(moved);
+			if (target == Data.PLAYER_NONE) {
+				if (!game.ruledMovePiece(selected, moved)) {
+					continue;
+				}
+			} else if (target != player && game.canAttack(selected, moved)) {
+				game.attack(selected, moved);
+			} else {
+				continue;
+			}
+			moves++;
+
+			int winner = winner(moved);
+			if (winner != Data.PLAYER_NONE) {
+				return winner;
+			}
+		}
+		return Data.PLAYER_NONE;
+	}
+
+
+
+	/**
+	 * @param id - destination of the last move
+	 * @return the winner, as MasterController checks it
+	 */
+	private int winner(int id) {
+		int winner = game.getPlayerWithNoRoyal();
+		if (winner != Data.PLAYER_NONE) {
+			return winner;
+		}
+		int occupant = game.getPiecePlayer(id);
+		if (game.isCastle(id) && occupant != Data.PLAYER_NONE && occupant != game.getCastlePlayer(id)) {
+			return occupant;
+		}
+		return Data.PLAYER_NONE;
+	}
+
+
+
+	/**
+	 * @return the winner of the game played, Data.PLAYER_NONE for a draw
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+
+
+	/**
+	 * @return turns played, by both players together
+	 */
+	public int getTurns() {
+		return turns;
+	}
+
+
+
+	/**
+	 * @return moves and attacks made, by both players together
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+
+
+	/**
+	 * @return the game played
+	 */
+	public Game getGame() {
+		return game;
+	}
+}
@@ -0,0 +1,55 @@
+package gameEngine;
+
+import componentLibrary.Board;
+
+
+/**
+ * scores a position from the terms the board keeps up to date as
+ * moves are made and taken back, so a leaf costs a handful of reads
+ * instead of a pass over every piece's paths
+ *
+ * terms: material by piece type, royal pieces the enemy could take,
+ * reachable positions, and how far pieces are from the enemy castle
+ */
+public class IncrementalEvaluator implements Evaluator {
+
+	public static final int MOBILITY_WEIGHT = 1;			// per reachable position
+	public static final int ATTACKED_ROYAL_WEIGHT = 150;	// per royal the enemy could take
+	public static final int CASTLE_DISTANCE_WEIGHT = 6;		// per move still needed to reach the enemy castle green
+
+	private int[] values;	// indexed by Data.PIECE_*
+
+
+
+	public IncrementalEvaluator() {
+		this(MaterialEvaluator.PIECE_VALUES);
+	}
+
+
+
+	/**
+	 * @param values - value of each piece type, indexed by Data.PIECE_*
+	 */
+	public IncrementalEvaluator(int[] values) {
+		this.values = values.clone();
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.Evaluator#evaluate(componentLibrary.Board, int)
+	 */
+	@Override
+	public int evaluate(Board board, int player) {
+		int enemy = Data.PLAYER_A + Data.PLAYER_B - player;
+
+		int score = 0;
+		for (int type = 0; type < Data.PIECE_TYPES; type++) {
+			score += values[type] * (board.getTypeCount(player, type) - board.getTypeCount(enemy, type));
+		}
+		score += MOBILITY_WEIGHT * (board.getMobility(player) - board.getMobility(enemy));
+		score -= ATTACKED_ROYAL_WEIGHT * (board.getAttackedRoyals(player) - board.getAttackedRoyals(enemy));
+		score -= CASTLE_DISTANCE_WEIGHT * (board.getCastleDistance(player) - board.getCastleDistance(enemy));
+		return score;
+	}
+}
@@ -0,0 +1,147 @@
+package gameEngine;
+
+import componentLibrary.*;
+
+
+/**
+ * AI that picks each move of its turn with Monte Carlo tree search,
+ * setup is left to the plain AI
+ */
+public class MCTSAI extends AI {
+
+	public static final long DEFAULT_TIME = 1000;
+
+	public long timeLimit = DEFAULT_TIME;	// milliseconds per move, 0 for no limit
+	public long playoutLimit = 0;			// playouts per move, 0 for no limit
+	public Evaluator evaluator = new IncrementalEvaluator();
+	public int maxMoves = Data.PIECE_COUNT;	// moves made before the turn is ended regardless
+	public int threads = Runtime.getRuntime().availableProcessors();
+	private volatile MonteCarloSearch search;		// rebuilt when threads or evaluator change
+	private volatile boolean cancelled = false;
+	private boolean searching = false;		// a move is being searched, guarded by this
+	private int pending = Move.NONE;
+	private int movesMade = 0;
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#selectPiece(boolean)
+	 */
+	@Override
+	public int selectPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.selectPiece(isSetup);
+		}
+
+		pending = Move.NONE;
+		MonteCarloSearch current;
+		synchronized (this) {
+			if (movesMade >= maxMoves || cancelled) {
+				movesMade = 0;
+				return -1;
+			}
+			current = getSearch();
+			searching = true;
+		}
+
+		long time = timeLimit == 0 && playoutLimit == 0 ? DEFAULT_TIME : timeLimit;
+		int move = current.search(board, time, playoutLimit);
+
+		synchronized (this) {
+			searching = false;
+			if (cancelled) {
+				shutdownSearch();	// cancelled while searching, the threads are released here
+			}
+		}
+
+		if (move == Move.NONE || Move.isEndTurn(move)) {
+			movesMade = 0;
+			return -1;
+		}
+		pending = move;
+		return Move.source(move);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#moveSelectedPiece(boolean)
+	 */
+	@Override
+	public int moveSelectedPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.moveSelectedPiece(isSetup);
+		}
+
+		if (pending == Move.NONE) {
+			return -1;
+		}
+		movesMade++;
+		return Move.destination(pending);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#setBudget(long, long)
+	 *
+	 * a playout counts as a node
+	 */
+	@Override
+	public void setBudget(long timeLimit, long nodeLimit) {
+		this.timeLimit = timeLimit;
+		this.playoutLimit = nodeLimit;
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#cancel()
+	 */
+	@Override
+	public void cancel() {
+		cancelled = true;
+		MonteCarloSearch current = search;
+		if (current != null) {
+			current.cancel();
+		}
+
+		synchronized (this) {
+			if (!searching) {
+				shutdownSearch();
+			}
+		}
+	}
+
+
+
+	/**
+	 * stops the helper threads of the search, a search in progress
+	 * must have returned
+	 */
+	private void shutdownSearch() {
+		if (search != null) {
+			search.shutdown();
+			search = null;
+		}
+	}
+
+
+
+	/**
+	 * @return the search matching the current settings
+	 */
+	private MonteCarloSearch getSearch() {
+		if (search == null || search.getThreads() != Math.max(1, threads)
+				|| search.getEvaluator() != evaluator) {
+			if (search != null) {
+				search.shutdown();
+			}
+			search = new MonteCarloSearch(evaluator, threads, random.nextLong());
+			if (cancelled) {
+				search.cancel();
+			}
+		}
+		return search;
+	}
+}
@@ -0,0 +1,35 @@
+package gameEngine;
+
+import componentLibrary.Board;
+import componentLibrary.Piece;
+
+
+/**
+ * scores a position by the value of the pieces each player has left,
+ * with a small bonus for the positions each piece could reach
+ */
+public class MaterialEvaluator implements Evaluator {
+
+	// indexed by Data.PIECE_*
+	public static final int[] PIECE_VALUES = {400, 300, 300, 120, 80, 90, 100, 60};
+	
+	
+	
+	/* (non-Javadoc)
+	 * @see gameEngine.Evaluator#evaluate(componentLibrary.Board, int)
+	 */
+	@Override
+	public int evaluate(Board board, int player) {
+		int score = 0;
+		for (int i = 0; i < board.getPiecesCount(); i++) {
+			Piece p = board.getPiece(i);
+			int value = PIECE_VALUES[p.getType()] + p.getReachableCount() + p.getRangedCount();
+			if (p.getPlayer() == player) {
+				score += value;
+			} else {
+				score -= value;
+			}
+		}
+		return score;
+	}
+}
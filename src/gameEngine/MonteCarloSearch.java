@@ -0,0 +1,410 @@
+package gameEngine;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import componentLibrary.*;
+
+
+/**
+ * Monte Carlo tree search over single piece moves and turn ends
+ *
+ * children are picked by UCT, and each new leaf is scored by a random
+ * playout on the thread's own board copy. A playout that reaches its
+ * length limit is scored by the evaluator instead.
+ *
+ * with several threads the tree is shared, and a node being walked
+ * through counts as a lost visit until its playout returns, so
+ * threads spread over different branches
+ */
+public class MonteCarloSearch {
+
+	public static final double EXPLORATION = 1.4;
+	public static final int PLAYOUT_LENGTH = 48;	// single moves before a playout is evaluated
+	public static final double EVAL_SCALE = 400;	// evaluation difference that gives about 73% wins
+
+	private Evaluator evaluator;
+	private int threads;
+	private SplittableRandom random;	// split once for each worker of a search
+	private ExecutorService helpers;	// null when searching on one thread
+
+	private Node root;
+	private long deadline;
+	private long maxPlayouts;
+	private volatile boolean stopped;
+	private volatile boolean cancelled;
+	private long[] playouts;		// per thread, calling thread first
+	private double seconds;
+
+
+
+	/**
+	 * @param evaluator	- scores playouts that do not end the game, shared by all threads
+	 * @param threads	- number of searching threads, the caller included
+	 * @param seed		- seed of the playout randomness
+	 */
+	public MonteCarloSearch(Evaluator evaluator, int threads, long seed) {
+		this.evaluator = evaluator;
+		this.threads = Math.max(1, threads);
+		this.random = new SplittableRandom(seed);
+		this.playouts = new long[this.threads];
+
+		if (this.threads > 1) {
+			helpers = Executors.newFixedThreadPool(this.threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "mcts helper");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+
+
+
+	/**
+	 * @param board		- position to search, left unchanged
+	 * @param timeLimit	- milliseconds to search for, 0 for no limit
+	 * @param limit		- playouts to run at most, 0 for no limit
+	 * @return the most visited move, Move.NONE if the game is over
+	 *
+	 * at least one of timeLimit and limit must be set
+	 */
+	public int search(Board board, long timeLimit, long limit) {
+		root = new Node(Move.NONE, null, Data.PLAYER_NONE);
+		deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : 0;
+		maxPlayouts = limit;
+		stopped = cancelled;
+
+		ArrayList<Future<?>> running = new ArrayList<Future<?>>(threads - 1);
+		for (int i = 1; i < threads; i++) {
+			running.add(helpers.submit(new Worker(new Board(board), i)));
+		}
+
+		long start = System.nanoTime();
+		new Worker(new Board(board), 0).run();
+		stopped = true;
+		for (int i = 0; i < running.size(); i++) {
+			try {
+				running.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+
+		Node best = root.mostVisited();
+		return best == null ? Move.NONE : best.move;
+	}
+
+
+
+	/**
+	 * stops the running search and every later one at once, for
+	 * when the result is no longer wanted
+	 */
+	public void cancel() {
+		cancelled = true;
+		stopped = true;
+	}
+
+
+
+	/**
+	 * stops the helper threads, the search cannot be used afterwards
+	 */
+	public void shutdown() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+
+
+	/**
+	 * @return number of searching threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+
+
+	/**
+	 * @return evaluator shared by the threads
+	 */
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+
+
+
+	/**
+	 * @return playouts run by each thread in the last search,
+	 * 			calling thread first
+	 */
+	public long[] getPlayouts() {
+		return playouts.clone();
+	}
+
+
+
+	/**
+	 * @return wall clock seconds of the last search
+	 */
+	public double getSeconds() {
+		return seconds;
+	}
+
+
+
+	/**
+	 * @return share of playouts won by the side to move through the
+	 * 			chosen move of the last search
+	 */
+	public double getBestValue() {
+		Node best = root == null ? null : root.mostVisited();
+		return best == null ? 0 : best.value();
+	}
+
+
+
+	/**
+	 * one searching thread with its own board and buffers, nothing is
+	 * allocated per playout besides the new leaf
+	 */
+	private class Worker implements Runnable {
+
+		private Board board;
+		private int index;
+		private SplittableRandom random;
+		private int[] moves;
+		private Node[] path = new Node[Search.MAX_PLY * 4];
+
+		Worker(Board board, int index) {
+			this.board = board;
+			this.index = index;
+			this.random = MonteCarloSearch.this.random.split();
+			this.moves = new int[MoveGenerator.capacity(board) + 1];
+		}
+
+		@Override
+		public void run() {
+			long count = 0;
+			while (!outOfBudget(count)) {
+				iterate();
+				count++;
+			}
+			playouts[index] = count;
+		}
+
+		/**
+		 * @param count - playouts run by this thread so far
+		 * @return true if the search should end
+		 */
+		private boolean outOfBudget(long count) {
+			if (stopped) {
+				return true;
+			}
+			if (maxPlayouts > 0 && count * threads >= maxPlayouts) {
+				return true;
+			}
+			return deadline > 0 && (count & 15) == 0 && System.nanoTime() - deadline >= 0;
+		}
+
+		/**
+		 * walks down the tree to a new leaf, plays it out and records the result
+		 */
+		private void iterate() {
+			Node node = root;
+			int depth = 0;
+			path[depth++] = node;
+
+			while (board.getWinner() == Data.PLAYER_NONE && depth < path.length - 1) {
+				Node next = node.select(board, moves, random);
+				if (next == null) {
+					break;
+				}
+				board.makeMove(next.move);
+				node = next;
+				path[depth++] = node;
+				if (next.isLeaf()) {
+					break;	// never expanded, play out from here
+				}
+			}
+
+			double resultA = playout();	// share of the win going to player A
+
+			for (int i = depth - 1; i >= 0; i--) {
+				path[i].update(resultA);
+				if (i > 0) {
+					board.unmakeMove();
+				}
+				path[i] = null;
+			}
+		}
+
+		/**
+		 * @return 1 if player A wins the playout, 0 if player B wins,
+		 * 			in between by evaluation if neither does in time
+		 */
+		private double playout() {
+			int made = 0;
+			int winner = board.getWinner();
+			while (winner == Data.PLAYER_NONE && made < PLAYOUT_LENGTH) {
+				int n = MoveGenerator.generate(board, board.getSideToMove(), moves, false);
+				moves[n++] = Move.END_TURN;
+				board.makeMove(moves[random.nextInt(n)]);
+				made++;
+				winner = board.getWinner();
+			}
+
+			double result;
+			if (winner == Data.PLAYER_A) {
+				result = 1;
+			} else if (winner == Data.PLAYER_B) {
+				result = 0;
+			} else {
+				int score = evaluator.evaluate(board, Data.PLAYER_A);
+				result = 1 / (1 + Math.exp(-score / EVAL_SCALE));
+			}
+
+			for (int i = 0; i < made; i++) {
+				board.unmakeMove();
+			}
+			return result;
+		}
+	}
+
+
+
+	/**
+	 * a tree node, the position after move was made by player
+	 */
+	private static class Node {
+
+		static final int VIRTUAL_LOSS = 1;
+
+		final int move;
+		final Node parent;
+		final int player;		// player who made move, whose point of view wins are kept in
+		int visits;				// includes the virtual losses of threads walking through
+		double wins;
+		int[] untried;			// moves without a child yet, null until first expanded
+		int untriedCount;
+		Node[] children = new Node[0];
+		int childCount;
+
+		Node(int move, Node parent, int player) {
+			this.move = move;
+			this.parent = parent;
+			this.player = player;
+		}
+
+		/**
+		 * @param board	 - position of this node
+		 * @param buffer - move buffer to generate into
+		 * @param random
+		 * @return a new child for an untried move, else the child with
+		 * 			the best UCT value, null if there are no moves
+		 *
+		 * the returned child is given a virtual loss
+		 */
+		synchronized Node select(Board board, int[] buffer, SplittableRandom random) {
+			if (untried == null) {
+				int side = board.getSideToMove();
+				int n = MoveGenerator.generate(board, side, buffer, false);
+				buffer[n++] = Move.END_TURN;
+				untried = new int[n];
+				System.arraycopy(buffer, 0, untried, 0, n);
+				untriedCount = n;
+				children = new Node[n];
+			}
+
+			Node chosen;
+			if (untriedCount > 0) {
+				int i = random.nextInt(untriedCount);
+				int move = untried[i];
+				untried[i] = untried[--untriedCount];
+				chosen = new Node(move, this, board.getSideToMove());
+				children[childCount++] = chosen;
+			} else if (childCount == 0) {
+				return null;
+			} else {
+				chosen = bestChild();
+			}
+			synchronized (chosen) {
+				chosen.visits += VIRTUAL_LOSS;
+			}
+			return chosen;
+		}
+
+		/**
+		 * @return child with the highest upper confidence bound
+		 */
+		private Node bestChild() {
+			double logVisits = Math.log(Math.max(1, visits));
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < childCount; i++) {
+				Node c = children[i];
+				double value;
+				synchronized (c) {
+					value = c.wins / c.visits + EXPLORATION * Math.sqrt(logVisits / c.visits);
+				}
+				if (value > bestValue) {
+					bestValue = value;
+					best = c;
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * @param resultA - share of the win going to player A
+		 *
+		 * counts a finished playout through this node, turning the
+		 * virtual loss it was given into a real visit
+		 */
+		synchronized void update(double resultA) {
+			if (parent == null) {
+				visits++;
+				return;
+			}
+			visits += 1 - VIRTUAL_LOSS;
+			wins += player == Data.PLAYER_A ? resultA : 1 - resultA;
+		}
+
+		/**
+		 * @return true if the node has not been expanded yet
+		 */
+		synchronized boolean isLeaf() {
+			return untried == null;
+		}
+
+		/**
+		 * @return child visited most often, null if there are none
+		 */
+		synchronized Node mostVisited() {
+			Node best = null;
+			for (int i = 0; i < childCount; i++) {
+				if (best == null || children[i].visits > best.visits) {
+					best = children[i];
+				}
+			}
+			return best;
+		}
+
+		synchronized double value() {
+			return visits == 0 ? 0 : wins / visits;
+		}
+	}
+}
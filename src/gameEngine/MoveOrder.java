@@ -0,0 +1,137 @@
+package gameEngine;
+
+import componentLibrary.*;
+
+
+/**
+ * orders the moves of a search node so that the moves most likely to
+ * cause a cutoff are searched first
+ *
+ * order: the hash move, captures of royal pieces, other captures by
+ * value of the captured piece, the two killer moves of the ply, then
+ * the rest by history score
+ */
+class MoveOrder {
+
+	private static final int HASH_SCORE = 1 << 30;
+	private static final int ROYAL_CAPTURE_SCORE = 1 << 29;
+	private static final int CAPTURE_SCORE = 1 << 28;
+	private static final int KILLER_SCORE = 1 << 27;
+	private static final int HISTORY_MAX = KILLER_SCORE - 1;	// history is halved before reaching killers
+
+	private int squares;
+	private int[] history;		// indexed by source * squares + destination, END_TURN is 0 to 0
+	private int[][] killers;	// two quiet moves per ply that last caused a cutoff
+	private int[][] scores;		// one score buffer per ply
+
+
+
+	/**
+	 * @param squares	- number of squares of the board
+	 * @param capacity	- longest move list of a node
+	 */
+	MoveOrder(int squares, int capacity) {
+		this.squares = squares;
+		this.history = new int[squares * squares];
+		this.killers = new int[Search.MAX_PLY][2];
+		this.scores = new int[Search.MAX_PLY][capacity];
+	}
+
+
+
+	/**
+	 * @param board
+	 * @param moves
+	 * @param n			- number of moves in moves
+	 * @param ply
+	 * @param first		- move to search first, Move.NONE for none
+	 *
+	 * scores the moves of a node, next() then picks them in order
+	 */
+	void score(Board board, int[] moves, int n, int ply, int first) {
+		int[] score = scores[ply];
+		int[] killer = killers[ply];
+
+		for (int i = 0; i < n; i++) {
+			int move = moves[i];
+			if (move == first) {
+				score[i] = HASH_SCORE;
+			} else if (Move.isCapture(move)) {
+				Piece target = board.getPieceAt(Move.destination(move));
+				int value = MaterialEvaluator.PIECE_VALUES[target.getType()];
+				score[i] = (target.isRoyal() ? ROYAL_CAPTURE_SCORE : CAPTURE_SCORE) + value;
+			} else if (move == killer[0]) {
+				score[i] = KILLER_SCORE + 1;
+			} else if (move == killer[1]) {
+				score[i] = KILLER_SCORE;
+			} else {
+				score[i] = history[index(move)];
+			}
+		}
+	}
+
+
+
+	/**
+	 * @param moves
+	 * @param n		- number of moves in moves
+	 * @param i		- number of moves already picked
+	 * @param ply
+	 * @return the best scored move among the moves not yet picked,
+	 * 			swapped to position i
+	 */
+	int next(int[] moves, int n, int i, int ply) {
+		int[] score = scores[ply];
+		int best = i;
+		for (int j = i + 1; j < n; j++) {
+			if (score[j] > score[best]) {
+				best = j;
+			}
+		}
+		int move = moves[best];
+		moves[best] = moves[i];
+		moves[i] = move;
+		int s = score[best];
+		score[best] = score[i];
+		score[i] = s;
+		return move;
+	}
+
+
+
+	/**
+	 * @param move	- move that caused a cutoff
+	 * @param depth	- remaining depth of the node
+	 * @param ply
+	 *
+	 * remembers a quiet move as killer and raises its history score
+	 */
+	void cutoff(int move, int depth, int ply) {
+		if (Move.isCapture(move)) {
+			return;	// captures are already ordered first
+		}
+		int[] killer = killers[ply];
+		if (killer[0] != move) {
+			killer[1] = killer[0];
+			killer[0] = move;
+		}
+
+		int i = index(move);
+		history[i] += depth * depth;
+		if (history[i] > HISTORY_MAX) {
+			for (int j = 0; j < history.length; j++) {
+				history[j] >>= 1;
+			}
+		}
+	}
+
+
+
+	/**
+	 * @param move
+	 * @return history index of move
+	 */
+	private int index(int move) {
+		return Move.source(move) * squares + Move.destination(move);
+	}
+}
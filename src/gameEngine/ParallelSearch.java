@@ -0,0 +1,286 @@
+package gameEngine;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import componentLibrary.*;
+
+
+/**
+ * lazy SMP search, several threads search the same position at once
+ * on their own board copies and share what they find through one
+ * transposition table
+ *
+ * the calling thread does the main search and its move is the result,
+ * the helpers start at alternating depths so that they fill the table
+ * ahead of it rather than repeat its work
+ */
+public class ParallelSearch {
+
+	private Evaluator evaluator;
+	private TranspositionTable table;
+	private int threads;
+	private boolean quiescence = true;
+	private Tablebase[] tablebases;
+	private ExecutorService helpers;	// null when searching on one thread
+	private volatile Search[] active = new Search[0];	// searches of the current iterate call
+	private volatile boolean cancelled;
+
+	private long[] nodes;		// per thread, main thread first
+	private double seconds;
+	private int completedDepth;
+	private int bestScore;
+	private double cutoffRate;
+
+
+
+	/**
+	 * @param evaluator	- shared by all threads
+	 * @param table		- shared by all threads
+	 * @param threads	- number of searching threads, the caller included
+	 */
+	public ParallelSearch(Evaluator evaluator, TranspositionTable table, int threads) {
+		this.evaluator = evaluator;
+		this.table = table;
+		this.threads = Math.max(1, threads);
+		this.nodes = new long[this.threads];
+
+		if (this.threads > 1) {
+			helpers = Executors.newFixedThreadPool(this.threads - 1, new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "search helper");
+					t.setDaemon(true);	// never keeps the game from exiting
+					return t;
+				}
+			});
+		}
+	}
+
+
+
+	/**
+	 * @param root		- position to search, left unchanged
+	 * @param maxDepth	- deepest iteration
+	 * @param timeLimit	- milliseconds to search for, 0 for no limit
+	 * @param maxNodes	- positions the main thread visits at most, 0 for no limit
+	 * @return best move found by the main thread, as for Search.iterate
+	 */
+	public int iterate(Board root, int maxDepth, long timeLimit, long maxNodes) {
+		Search main = new Search(new Board(root), evaluator);
+		main.setTable(table);
+		main.setQuiescence(quiescence);
+		main.setTablebases(tablebases);
+
+		ArrayList<Search> searches = new ArrayList<Search>(threads - 1);
+		ArrayList<Future<?>> running = new ArrayList<Future<?>>(threads - 1);
+		for (int i = 1; i < threads; i++) {
+			final Search helper = new Search(new Board(root), evaluator);
+			final int firstDepth = 1 + (i & 1);
+			final int depth = maxDepth;
+			final long time = timeLimit;
+			helper.setTable(table);
+			helper.setQuiescence(quiescence);
+			helper.setTablebases(tablebases);
+			searches.add(helper);
+			running.add(helpers.submit(new Runnable() {
+				@Override
+				public void run() {
+					helper.iterate(firstDepth, depth, time, 0);
+				}
+			}));
+		}
+
+		Search[] all = searches.toArray(new Search[threads]);
+		all[threads - 1] = main;
+		active = all;
+		if (cancelled) {
+			stop();
+		}
+
+		long start = System.nanoTime();
+		int move = main.iterate(maxDepth, timeLimit, maxNodes);
+
+		for (int i = 0; i < searches.size(); i++) {
+			searches.get(i).stop();
+		}
+		active = new Search[0];
+		for (int i = 0; i < running.size(); i++) {
+			waitFor(running.get(i));
+		}
+		seconds = (System.nanoTime() - start) / 1e9;
+
+		nodes[0] = main.getNodes();
+		for (int i = 0; i < searches.size(); i++) {
+			nodes[i + 1] = searches.get(i).getNodes();
+		}
+		completedDepth = main.getCompletedDepth();
+		bestScore = main.getBestScore();
+		cutoffRate = main.getFirstMoveCutoffRate();
+		return move;
+	}
+
+
+
+	/**
+	 * @param task - helper search to wait for
+	 */
+	private static void waitFor(Future<?> task) {
+		try {
+			task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+
+
+	/**
+	 * ends the search currently running on another thread as if it
+	 * ran out of time, does nothing if no search is running
+	 */
+	public void stop() {
+		Search[] all = active;
+		for (int i = 0; i < all.length; i++) {
+			if (all[i] != null) {
+				all[i].stop();
+			}
+		}
+	}
+
+
+
+	/**
+	 * stops the running search and every later one at once, for
+	 * when the result is no longer wanted
+	 */
+	public void cancel() {
+		cancelled = true;
+		stop();
+	}
+
+
+
+	/**
+	 * stops the helper threads, the search cannot be used afterwards
+	 */
+	public void shutdown() {
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+
+
+
+	/**
+	 * @return evaluator shared by the threads
+	 */
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+
+
+
+	/**
+	 * @param quiescence - false to score leaves without searching their captures,
+	 * 					   applies from the next search on
+	 */
+	public void setQuiescence(boolean quiescence) {
+		this.quiescence = quiescence;
+	}
+
+
+
+	/**
+	 * @param tablebases - tables to probe, null for none, applies from
+	 * 					   the next search on
+	 */
+	public void setTablebases(Tablebase[] tablebases) {
+		this.tablebases = tablebases;
+	}
+
+
+
+	/**
+	 * @return table shared by the threads
+	 */
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+
+
+	/**
+	 * @return number of searching threads
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+
+
+	/**
+	 * @return positions visited by each thread in the last search,
+	 * 			main thread first
+	 */
+	public long[] getNodes() {
+		return nodes.clone();
+	}
+
+
+
+	/**
+	 * @return positions per second of each thread in the last search,
+	 * 			main thread first
+	 */
+	public double[] getNodesPerSecond() {
+		double[] rates = new double[threads];
+		for (int i = 0; i < threads; i++) {
+			rates[i] = seconds > 0 ? nodes[i] / seconds : 0;
+		}
+		return rates;
+	}
+
+
+
+	/**
+	 * @return wall clock seconds of the last search
+	 */
+	public double getSeconds() {
+		return seconds;
+	}
+
+
+
+	/**
+	 * @return depth of the deepest iteration the main thread finished
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+
+
+	/**
+	 * @return share of the main thread's cutoffs made by the first move
+	 * 			searched in the last search
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffRate;
+	}
+
+
+
+	/**
+	 * @return score of the move found by the last search
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+}
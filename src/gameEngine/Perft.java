@@ -0,0 +1,211 @@
+package gameEngine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import componentLibrary.*;
+
+
+/**
+ * counts the positions reachable from a board through legal single
+ * piece moves and turn ends, used to check move generation and to
+ * measure its speed
+ *
+ * a won position has no moves, so it is counted only as a leaf
+ */
+public class Perft {
+
+	private Board board;
+	private int[][] moves;		// one move buffer per ply
+
+
+
+	/**
+	 * @param board - position to count from, left unchanged by every count
+	 */
+	public Perft(Board board) {
+		this.board = board;
+		this.moves = new int[0][];
+	}
+
+
+
+	/**
+	 * @param depth
+	 * @return number of positions exactly depth moves away
+	 */
+	public long perft(int depth) {
+		allocate(depth);
+		return count(depth, 0);
+	}
+
+
+
+	/**
+	 * @param depth
+	 *
+	 * makes sure there is a move buffer for each ply up to depth
+	 */
+	private void allocate(int depth) {
+		if (moves.length < depth) {
+			moves = new int[depth][MoveGenerator.capacity(board)];
+		}
+	}
+
+
+
+	/**
+	 * @param depth
+	 * @param out	- stream to print each root move's count to
+	 * @return number of positions exactly depth moves away
+	 */
+	public long divide(int depth, PrintStream out) {
+		if (depth < 1) {
+			return 1;
+		}
+		allocate(depth);
+		int[] root = moves[0];
+		int n = rootMoves(root);
+		long total = 0;
+
+		for (int i = 0; i < n; i++) {
+			board.makeMove(root[i]);
+			long nodes = count(depth - 1, 1);
+			board.unmakeMove();
+			out.println(Move.toString(root[i]) + ": " + nodes);
+			total += nodes;
+		}
+		out.println("total: " + total);
+		return total;
+	}
+
+
+
+	/**
+	 * @param board - position to count from, left unchanged
+	 * @param depth
+	 * @param pool	- pool running one task per root move
+	 * @return number of positions exactly depth moves away
+	 *
+	 * each task counts the subtree of one root move on its own copy of board
+	 */
+	public static long parallelPerft(Board board, int depth, ForkJoinPool pool) {
+		if (depth < 1) {
+			return 1;
+		}
+		return pool.invoke(new RootTask(board, depth));
+	}
+
+
+
+	/**
+	 * @param buffer
+	 * @return number of legal moves at the root written to buffer
+	 */
+	private int rootMoves(int[] buffer) {
+		if (board.getWinner() != Data.PLAYER_NONE) {
+			return 0;
+		}
+		int n = MoveGenerator.generate(board, board.getSideToMove(), buffer, false);
+		buffer[n++] = Move.END_TURN;
+		return n;
+	}
+
+
+
+	/**
+	 * @param depth
+	 * @param ply	- index of the move buffer to use
+	 * @return number of positions depth moves away from the board
+	 */
+	private long count(int depth, int ply) {
+		if (depth == 0) {
+			return 1;
+		}
+		if (board.getWinner() != Data.PLAYER_NONE) {
+			return 0;
+		}
+		if (depth == 1) {
+			return MoveGenerator.count(board, board.getSideToMove()) + 1;
+		}
+
+		int[] buffer = moves[ply];
+		int n = MoveGenerator.generate(board, board.getSideToMove(), buffer, false);
+		buffer[n++] = Move.END_TURN;
+		long nodes = 0;
+
+		for (int i = 0; i < n; i++) {
+			board.makeMove(buffer[i]);
+			nodes += count(depth - 1, ply + 1);
+			board.unmakeMove();
+		}
+		return nodes;
+	}
+
+
+
+	/**
+	 * splits the root moves into one subtask each
+	 */
+	private static class RootTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private Board root;
+		private int depth;
+
+		RootTask(Board root, int depth) {
+			this.root = root;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			Perft local = new Perft(new Board(root));
+			local.allocate(1);
+			int[] rootMoves = local.moves[0];
+			int n = local.rootMoves(rootMoves);
+
+			ArrayList<MoveTask> tasks = new ArrayList<MoveTask>(n);
+			for (int i = 0; i < n; i++) {
+				tasks.add(new MoveTask(root, rootMoves[i], depth - 1));
+			}
+			invokeAll(tasks);
+
+			long total = 0;
+			for (int i = 0; i < n; i++) {
+				total += tasks.get(i).join();
+			}
+			return total;
+		}
+	}
+
+
+
+	/**
+	 * counts the subtree below one root move on a private board
+	 */
+	private static class MoveTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private Board root;
+		private int move;
+		private int depth;
+
+		MoveTask(Board root, int move, int depth) {
+			this.root = root;
+			this.move = move;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			Board copy = new Board(root);	// copying only reads root, tasks may share it
+			copy.makeMove(move);
+			return new Perft(copy).perft(depth);
+		}
+	}
+}
@@ -0,0 +1,442 @@
+package gameEngine;
+
+import componentLibrary.*;
+
+
+/**
+ * negamax alpha-beta search over single piece moves
+ *
+ * a turn is a sequence of moves by the same player closed by
+ * Move.END_TURN, so the score is only negated when the side to
+ * move changes, moves within a turn keep the same point of view
+ *
+ * leaves are extended by a quiescence search over the captures left
+ * to the side to move, so that a position is not scored halfway
+ * through a chain of captures
+ *
+ * positions at the start of a turn found in a tablebase take their
+ * exact value from it instead of being searched
+ */
+public class Search {
+
+	public static final int INFINITY = 1 << 24;
+	public static final int WIN = 1 << 20;	// scores beyond WIN - MAX_PLY are won games
+	public static final int MAX_PLY = 64;
+	public static final int TABLE_WIN = WIN / 2;	// tablebase wins score TABLE_WIN less their turns
+
+	private static final int CHECK_INTERVAL = 1023;	// nodes between deadline checks
+
+	private Board board;
+	private Evaluator evaluator;
+	private TranspositionTable table;	// null to search without one
+	private int[][] moves;		// one move buffer per ply
+	private MoveOrder order;
+	private long nodes;
+	private long cutoffs;			// nodes that failed high
+	private long firstCutoffs;		// nodes that failed high on their first move
+	private int bestMove;
+	private int bestScore;
+	private int completedDepth;
+
+	private long deadline;		// System.nanoTime() to stop at, 0 for none
+	private long nodeLimit;		// nodes to stop at, 0 for none
+	private boolean stopped;
+	private volatile boolean abort;	// set by another thread to end the search early
+	private boolean rootSearched;	// at least one root move of this iteration was searched fully
+	private boolean quiescence = true;	// false to score leaves as they are
+	private Tablebase[] tablebases;		// null to search without any
+
+
+
+	/**
+	 * @param board		- position to search, changed during the search
+	 * 					  and restored afterwards
+	 * @param evaluator
+	 */
+	public Search(Board board, Evaluator evaluator) {
+		this.board = board;
+		this.evaluator = evaluator;
+		int capacity = MoveGenerator.capacity(board) + 1;
+		this.moves = new int[MAX_PLY][capacity];
+		this.order = new MoveOrder(board.getDim() * board.getDim(), capacity);
+	}
+
+
+
+	/**
+	 * @param depth - number of single moves to look ahead
+	 * @return the best move for the side to move, Move.END_TURN
+	 * 			if ending the turn is best, Move.NONE if the game is over
+	 */
+	public int search(int depth) {
+		deadline = 0;
+		nodeLimit = 0;
+		stopped = false;
+		bestMove = Move.NONE;
+		bestScore = negamax(Math.min(depth, MAX_PLY - 1), 0, -INFINITY, INFINITY);
+		completedDepth = depth;
+		return bestMove;
+	}
+
+
+
+	/**
+	 * @param maxDepth	- deepest iteration to search
+	 * @param timeLimit	- milliseconds to search for, 0 for no limit
+	 * @param maxNodes	- positions to visit at most, 0 for no limit
+	 * @return the best move of the deepest iteration finished in time,
+	 * 			or better if the unfinished iteration already found it
+	 *
+	 * searches one move deeper each iteration, trying the previous best
+	 * move first, until maxDepth is done or a limit is hit
+	 */
+	public int iterate(int maxDepth, long timeLimit, long maxNodes) {
+		return iterate(1, maxDepth, timeLimit, maxNodes);
+	}
+
+
+
+	/**
+	 * @param firstDepth - depth of the first iteration
+	 * @param maxDepth
+	 * @param timeLimit
+	 * @param maxNodes
+	 * @return the best move found, as for iterate(maxDepth, timeLimit, maxNodes)
+	 */
+	int iterate(int firstDepth, int maxDepth, long timeLimit, long maxNodes) {
+		deadline = timeLimit > 0 ? System.nanoTime() + timeLimit * 1000000L : 0;
+		nodeLimit = maxNodes > 0 ? nodes + maxNodes : 0;
+		stopped = false;
+		bestMove = Move.NONE;
+		bestScore = 0;
+		completedDepth = 0;
+
+		int result = Move.NONE;
+		int resultScore = 0;
+		maxDepth = Math.min(maxDepth, MAX_PLY - 1);
+
+		for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+			rootSearched = false;
+			int score = negamax(depth, 0, -INFINITY, INFINITY);
+			if (stopped) {
+				if (rootSearched && bestMove != result) {
+					result = bestMove;	// beat the previous best, which was searched first
+					resultScore = bestScore;
+				}
+				break;
+			}
+			result = bestMove;
+			resultScore = score;
+			completedDepth = depth;
+			if (result == Move.NONE || Math.abs(score) > WIN - MAX_PLY) {
+				break;	// the game is decided within the horizon
+			}
+		}
+
+		bestMove = result;
+		bestScore = resultScore;
+		return result;
+	}
+
+
+
+	/**
+	 * @return true if the current search has run out of time or nodes
+	 */
+	private boolean outOfBudget() {
+		if (abort) {
+			return true;
+		}
+		if (nodeLimit > 0 && nodes >= nodeLimit) {
+			return true;
+		}
+		return deadline > 0 && (nodes & CHECK_INTERVAL) == 0 && System.nanoTime() - deadline >= 0;
+	}
+
+
+
+	/**
+	 * @param depth - remaining moves to look ahead
+	 * @param ply	- moves made since the root
+	 * @param alpha
+	 * @param beta
+	 * @return score of the position for the side to move
+	 */
+	private int negamax(int depth, int ply, int alpha, int beta) {
+		nodes++;
+		if (stopped || outOfBudget()) {
+			stopped = true;
+			return 0;
+		}
+		int side = board.getSideToMove();
+		int winner = board.getWinner();
+		if (winner != Data.PLAYER_NONE) {
+			return winner == side ? WIN - ply : ply - WIN;
+		}
+		if (tablebases != null && ply > 0) {
+			for (int i = 0; i < tablebases.length; i++) {
+				int value = tablebases[i].probe(board);
+				if (value != Tablebase.MISSING) {
+					return value == Tablebase.DRAW ? 0 : value > 0 ? TABLE_WIN - value : -TABLE_WIN - value;
+				}
+			}
+		}
+		if (depth == 0) {
+			return quiescence ? quiesce(ply, alpha, beta) : evaluator.evaluate(board, side);
+		}
+
+		int hashMove = Move.NONE;
+		long key = board.getHash();
+		if (table != null) {
+			long entry = table.probe(key);
+			if (entry != TranspositionTable.MISSING) {
+				hashMove = TranspositionTable.move(entry);
+				if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+					int score = fromTable(TranspositionTable.score(entry), ply);
+					int bound = TranspositionTable.bound(entry);
+					if (bound == TranspositionTable.BOUND_EXACT
+							|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+							|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+						return score;
+					}
+				}
+			}
+		}
+
+		int[] buffer = moves[ply];
+		int n = MoveGenerator.generate(board, side, buffer, false);
+		buffer[n++] = Move.END_TURN;
+		order.score(board, buffer, n, ply, ply == 0 && bestMove != Move.NONE ? bestMove : hashMove);
+		int best = -INFINITY;
+		int bestHere = Move.NONE;
+		int alphaIn = alpha;
+
+		for (int i = 0; i < n; i++) {
+			int move = order.next(buffer, n, i, ply);
+			board.makeMove(move);
+			int score;
+			if (board.getSideToMove() == side) {
+				score = negamax(depth - 1, ply + 1, alpha, beta);
+			} else {
+				score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+			}
+			board.unmakeMove();
+			if (stopped) {
+				return best;
+			}
+
+			if (score > best) {
+				best = score;
+				bestHere = move;
+				if (ply == 0) {
+					bestMove = move;
+					bestScore = score;
+					rootSearched = true;
+				}
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						cutoffs++;
+						if (i == 0) {
+							firstCutoffs++;
+						}
+						order.cutoff(move, depth, ply);
+						break;
+					}
+				}
+			}
+		}
+
+		if (table != null) {
+			int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+					: best > alphaIn ? TranspositionTable.BOUND_EXACT
+					: TranspositionTable.BOUND_UPPER;
+			table.store(key, bestHere, depth, bound, toTable(best, ply));
+		}
+		return best;
+	}
+
+
+
+	/**
+	 * @param ply	- moves made since the root
+	 * @param alpha
+	 * @param beta
+	 * @return score of the position for the side to move, searching only
+	 * 			its captures
+	 *
+	 * the side to move may also stop capturing, so the evaluation is
+	 * a lower bound of the score (stand pat) and cuts off at once when
+	 * it reaches beta
+	 */
+	private int quiesce(int ply, int alpha, int beta) {
+		int side = board.getSideToMove();
+		int standPat = evaluator.evaluate(board, side);
+		if (standPat >= beta || ply >= MAX_PLY - 1) {
+			return standPat;
+		}
+		if (standPat > alpha) {
+			alpha = standPat;
+		}
+
+		int[] buffer = moves[ply];
+		int n = MoveGenerator.generate(board, side, buffer, true);
+		order.score(board, buffer, n, ply, Move.NONE);
+		int best = standPat;
+
+		for (int i = 0; i < n; i++) {
+			int move = order.next(buffer, n, i, ply);
+			board.makeMove(move);
+			nodes++;
+			int score;
+			if (stopped || outOfBudget()) {
+				stopped = true;
+				score = 0;
+			} else if (board.getWinner() != Data.PLAYER_NONE) {
+				score = board.getWinner() == side ? WIN - ply - 1 : ply + 1 - WIN;
+			} else {
+				score = quiesce(ply + 1, alpha, beta);	// a capture never ends the turn
+			}
+			board.unmakeMove();
+			if (stopped) {
+				return best;
+			}
+
+			if (score > best) {
+				best = score;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+
+
+	/**
+	 * @param score
+	 * @param ply
+	 * @return score with won games counted from the current position
+	 * 			instead of the root, as stored in the table
+	 */
+	private static int toTable(int score, int ply) {
+		if (score > WIN - MAX_PLY) {
+			return score + ply;
+		} else if (score < MAX_PLY - WIN) {
+			return score - ply;
+		}
+		return score;
+	}
+
+
+
+	/**
+	 * @param score - score read from the table
+	 * @param ply
+	 * @return score with won games counted from the root
+	 */
+	private static int fromTable(int score, int ply) {
+		if (score > WIN - MAX_PLY) {
+			return score - ply;
+		} else if (score < MAX_PLY - WIN) {
+			return score + ply;
+		}
+		return score;
+	}
+
+
+
+	/**
+	 * ends a running search from another thread as if it ran out of
+	 * time, this and any later search of this object return at once
+	 */
+	public void stop() {
+		abort = true;
+	}
+
+
+
+	/**
+	 * @return depth of the deepest finished iteration of the last search
+	 */
+	public int getCompletedDepth() {
+		return completedDepth;
+	}
+
+
+
+	/**
+	 * @return number of nodes that failed high since the search was created
+	 */
+	public long getCutoffs() {
+		return cutoffs;
+	}
+
+
+
+	/**
+	 * @return share of the nodes failing high that did so on the first
+	 * 			move searched, a measure of move ordering
+	 */
+	public double getFirstMoveCutoffRate() {
+		return cutoffs == 0 ? 0 : (double) firstCutoffs / cutoffs;
+	}
+
+
+
+	/**
+	 * @return score of the best move found by the last search
+	 */
+	public int getBestScore() {
+		return bestScore;
+	}
+
+
+
+	/**
+	 * @return number of positions visited since the search was created
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+
+
+	/**
+	 * @param table - table shared with other searches, null for none
+	 */
+	public void setTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+
+
+	/**
+	 * @param evaluator
+	 */
+	public void setEvaluator(Evaluator evaluator) {
+		this.evaluator = evaluator;
+	}
+
+
+
+	/**
+	 * @param quiescence - false to score leaves without searching their captures
+	 */
+	public void setQuiescence(boolean quiescence) {
+		this.quiescence = quiescence;
+	}
+
+
+
+	/**
+	 * @param tablebases - tables to probe, null for none
+	 */
+	public void setTablebases(Tablebase[] tablebases) {
+		this.tablebases = tablebases;
+	}
+}
@@ -0,0 +1,252 @@
+package gameEngine;
+
+import java.io.File;
+import java.io.IOException;
+
+import componentLibrary.*;
+
+
+/**
+ * AI that picks each move of its turn with an alpha-beta search,
+ * deepened until its time or node budget runs out, setup is left
+ * to the plain AI
+ */
+public class SearchAI extends AI {
+
+	public static final int DEFAULT_DEPTH = Search.MAX_PLY - 1;
+	public static final long DEFAULT_TIME = 1000;
+	public static final int DEFAULT_TABLE_SIZE = 16;	// megabytes
+
+	public int depth = DEFAULT_DEPTH;		// deepest iteration searched
+	public long timeLimit = DEFAULT_TIME;	// milliseconds per move, 0 for no limit
+	public long nodeLimit = 0;				// positions per move, 0 for no limit
+	public Evaluator evaluator = new IncrementalEvaluator();
+	public TranspositionTable table = new TranspositionTable(DEFAULT_TABLE_SIZE);	// kept between moves
+	public int maxMoves = Data.PIECE_COUNT;	// moves made before the turn is ended regardless
+	public int threads = Runtime.getRuntime().availableProcessors();
+	public boolean ponder = true;			// search on the opponent's turn to fill the table
+	public boolean quiescence = true;		// search the captures left at the leaves
+	public File tablebaseDirectory = new File(Data.DIR_TABLEBASE);	// null to probe no tablebases
+	private Tablebase[] tablebases;		// tables of the terrain they were opened for
+	private long tablebaseTerrain;
+	private volatile ParallelSearch search;		// rebuilt when threads or evaluator change
+	private ParallelSearch ponderSearch;
+	private Thread ponderThread;			// null when not pondering
+	private volatile boolean cancelled = false;
+	private boolean searching = false;		// a move is being searched, guarded by this
+	private int pending = Move.NONE;
+	private int movesMade = 0;
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#selectPiece(boolean)
+	 */
+	@Override
+	public int selectPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.selectPiece(isSetup);
+		}
+
+		stopPondering();
+		pending = Move.NONE;
+		ParallelSearch current;
+		synchronized (this) {
+			if (movesMade >= maxMoves || cancelled) {
+				movesMade = 0;
+				return -1;
+			}
+			current = getSearch();
+			searching = true;
+		}
+
+		int move = current.iterate(board, depth, timeLimit, nodeLimit);
+
+		synchronized (this) {
+			searching = false;
+			if (cancelled) {
+				shutdownSearch();	// cancelled while searching, the threads are released here
+			}
+		}
+
+		if (move == Move.NONE || Move.isEndTurn(move)) {
+			movesMade = 0;
+			return -1;
+		}
+		pending = move;
+		return Move.source(move);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#moveSelectedPiece(boolean)
+	 */
+	@Override
+	public int moveSelectedPiece(boolean isSetup) {
+		if (isSetup) {
+			return super.moveSelectedPiece(isSetup);
+		}
+
+		if (pending == Move.NONE) {
+			return -1;
+		}
+		movesMade++;
+		return Move.destination(pending);
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#setBudget(long, long)
+	 */
+	@Override
+	public void setBudget(long timeLimit, long nodeLimit) {
+		this.timeLimit = timeLimit;
+		this.nodeLimit = nodeLimit;
+	}
+
+
+
+	/* (non-Javadoc)
+	 * @see gameEngine.AI#cancel()
+	 */
+	@Override
+	public void cancel() {
+		cancelled = true;
+		ParallelSearch current = search;
+		if (current != null) {
+			current.cancel();
+		}
+
+		synchronized (this) {
+			stopPondering();
+			if (ponderSearch != null) {
+				ponderSearch.shutdown();
+				ponderSearch = null;
+			}
+			if (!searching) {
+				shutdownSearch();
+			}
+		}
+	}
+
+
+
+	/**
+	 * stops the helper threads of the search, a search in progress
+	 * must have returned
+	 */
+	private void shutdownSearch() {
+		if (search != null) {
+			search.shutdown();
+			search = null;
+		}
+	}
+
+
+
+	/**
+	 * @return the search matching the current settings
+	 */
+	private ParallelSearch getSearch() {
+		if (search == null || search.getThreads() != Math.max(1, threads)
+				|| search.getEvaluator() != evaluator || search.getTable() != table) {
+			if (search != null) {
+				search.shutdown();
+			}
+			search = new ParallelSearch(evaluator, table, threads);
+			if (cancelled) {
+				search.cancel();
+			}
+		}
+		search.setQuiescence(quiescence);
+		search.setTablebases(getTablebases());
+		return search;
+	}
+
+
+
+	/**
+	 * @return the tables in tablebaseDirectory of the current terrain,
+	 * 			null if there are none or they cannot be read
+	 *
+	 * the tables are opened again only when the terrain changes
+	 */
+	private Tablebase[] getTablebases() {
+		if (tablebaseDirectory == null) {
+			return null;
+		}
+		long terrain = board.getTerrainHash();
+		if (tablebases == null || terrain != tablebaseTerrain) {
+			tablebaseTerrain = terrain;
+			try {
+				tablebases = Tablebase.openAll(tablebaseDirectory, terrain);
+			} catch (IOException e) {
+				e.printStackTrace();
+				tablebases = new Tablebase[0];
+			}
+		}
+		return tablebases.length == 0 ? null : tablebases;
+	}
+
+
+
+	/**
+	 * searches the current position on a background thread until
+	 * stopPondering is called, the results stay in the table where the
+	 * next search of the AI finds them
+	 *
+	 * called when the opponent's turn begins and after each of its
+	 * moves, a search still pondering the position before the move is
+	 * stopped and waited for first, so no two ponder on the table at once.
+	 * the board must not change before this returns, does nothing once
+	 * cancelled
+	 */
+	public synchronized void startPondering() {
+		stopPondering();
+		if (!ponder || cancelled) {
+			return;
+		}
+		if (ponderSearch == null || ponderSearch.getThreads() != Math.max(1, threads)
+				|| ponderSearch.getEvaluator() != evaluator || ponderSearch.getTable() != table) {
+			if (ponderSearch != null) {
+				ponderSearch.shutdown();
+			}
+			ponderSearch = new ParallelSearch(evaluator, table, threads);
+		}
+		ponderSearch.setQuiescence(quiescence);
+		ponderSearch.setTablebases(getTablebases());
+
+		final ParallelSearch pondering = ponderSearch;
+		final Board position = new Board(board);
+		ponderThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				pondering.iterate(position, depth, 0, 0);
+			}
+		}, "ponder");
+		ponderThread.setDaemon(true);
+		ponderThread.start();
+	}
+
+
+
+	/**
+	 * ends pondering and waits for the background search to return
+	 */
+	public synchronized void stopPondering() {
+		if (ponderThread == null) {
+			return;
+		}
+		try {
+			while (ponderThread.isAlive()) {
+				ponderSearch.stop();	// repeated in case the search had not started yet
+				ponderThread.join(10);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		ponderThread = null;
+	}
+}
@@ -0,0 +1,180 @@
+package gameEngine;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+import componentLibrary.*;
+
+
+/**
+ * plans where the pieces of a player go in the setup stage
+ *
+ * the free squares of the player's half are listed once and drawn
+ * without replacement, so planning takes the same time on any map.
+ * the plan can then be improved by a bounded number of random swaps,
+ * keeping those that guard the royals better or stand closer to the
+ * player's castle
+ */
+public class SetupPlanner {
+
+	public static final int GUARD_RANGE = 2;	// squares from a royal a piece guards it within
+	public static final int GUARDS_WANTED = 2;	// guards per royal that count towards the score
+	public static final int GUARD_WEIGHT = 24;	// worth about as much as a piece a full board width closer to the castle
+
+	private Board board;
+	private int dim;
+	private int[] free;		// valid empty squares, the first count of them not drawn yet
+	private int count;
+
+
+
+	/**
+	 * @param board
+	 * @param from	- first id of the player's half
+	 * @param to	- id one past the last of the player's half
+	 *
+	 * lists the squares of [from, to) with no piece on default terrain
+	 */
+	public SetupPlanner(Board board, int from, int to) {
+		this.board = board;
+		this.dim = board.getDim();
+		this.free = new int[to - from];
+		for (int id = from; id < to; id++) {
+			if (board.getPieceAt(id) == null && board.getTerrain(id) == Data.TERRAIN_DEFAULT) {
+				free[count++] = id;
+			}
+		}
+	}
+
+
+
+	/**
+	 * @return number of free squares not drawn yet
+	 */
+	public int getFreeCount() {
+		return count;
+	}
+
+
+
+	/**
+	 * @param random
+	 * @return a free square not drawn before, -1 if none are left
+	 */
+	public int draw(SplittableRandom random) {
+		if (count == 0) {
+			return -1;
+		}
+		int i = random.nextInt(count);
+		int id = free[i];
+		free[i] = free[--count];
+		free[count] = id;	// drawn squares gather behind count
+		return id;
+	}
+
+
+
+	/**
+	 * @param pieces	 - pieces of the player, in the order they are moved
+	 * @param castle	 - castle of the player, null to ignore castle distance
+	 * @param random
+	 * @param iterations - swaps to try improving the plan with, 0 for a plain random plan
+	 * @return destination of each piece, its own id for royals
+	 * 			and for pieces left where they are
+	 */
+	public int[] plan(ArrayList<Piece> pieces, Castle castle, SplittableRandom random, int iterations) {
+		int n = pieces.size();
+		int[] plan = new int[n];
+		for (int i = 0; i < n; i++) {
+			Piece p = pieces.get(i);
+			int dest = p.isRoyal() ? -1 : draw(random);
+			plan[i] = dest == -1 ? p.getId() : dest;
+		}
+		if (iterations <= 0 || n == 0) {
+			return plan;
+		}
+
+		Point entrance = castle == null ? null : castle.getEntrancePoint();
+		int score = score(pieces, plan, entrance);
+
+		for (int k = 0; k < iterations; k++) {
+			int i = random.nextInt(n);
+			if (pieces.get(i).isRoyal() || plan[i] == pieces.get(i).getId()) {
+				continue;
+			}
+			int old = plan[i];
+			int other = random.nextInt(n + count);
+			int swapWith = -1;
+
+			if (other < count) {
+				plan[i] = free[other];	// move to an undrawn square
+			} else {
+				swapWith = other - count;	// trade squares with another piece
+				if (pieces.get(swapWith).isRoyal() || plan[swapWith] == pieces.get(swapWith).getId()) {
+					continue;
+				}
+				plan[i] = plan[swapWith];
+				plan[swapWith] = old;
+			}
+
+			int next = score(pieces, plan, entrance);
+			if (next >= score) {
+				score = next;
+				if (swapWith == -1) {
+					free[other] = old;
+				}
+			} else if (swapWith == -1) {
+				plan[i] = old;
+			} else {
+				plan[swapWith] = plan[i];
+				plan[i] = old;
+			}
+		}
+		return plan;
+	}
+
+
+
+	/**
+	 * @param pieces
+	 * @param plan		- destination of each piece
+	 * @param entrance	- castle entrance, null to ignore
+	 * @return how good the plan is, higher is better
+	 */
+	private int score(ArrayList<Piece> pieces, int[] plan, Point entrance) {
+		int score = 0;
+		for (int r = 0; r < plan.length; r++) {
+			if (!pieces.get(r).isRoyal()) {
+				continue;
+			}
+			int guards = 0;
+			for (int i = 0; i < plan.length && guards < GUARDS_WANTED; i++) {
+				if (i != r && !pieces.get(i).isRoyal() && distance(plan[i], plan[r]) <= GUARD_RANGE) {
+					guards++;
+				}
+			}
+			score += guards * GUARD_WEIGHT;
+		}
+
+		if (entrance != null) {
+			for (int i = 0; i < plan.length; i++) {
+				int x = plan[i] % dim;
+				int y = plan[i] / dim;
+				score -= Math.max(Math.abs(x - entrance.x), Math.abs(y - entrance.y));
+			}
+		}
+		return score;
+	}
+
+
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return number of king steps between squares a and b
+	 */
+	private int distance(int a, int b) {
+		return Math.max(Math.abs(a % dim - b % dim), Math.abs(a / dim - b / dim));
+	}
+}
@@ -0,0 +1,1007 @@
+package gameEngine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import componentLibrary.*;
+
+
+/**
+ * exact results of every position of a small material on one terrain,
+ * solved by retrograde analysis and kept in a memory mapped file
+ *
+ * a position is the square of each piece and the side to move at the
+ * start of a turn. its value is the number of turns to the end of the
+ * game with best play, positive if the side to move wins within its
+ * own turn that many turns on, negative if the other player wins
+ * within its turn that many turns on, DRAW if neither can force a win
+ *
+ * the file holds one byte per position behind a header naming the
+ * terrain hash and the material, so tables of any size stay off the heap.
+ * positions are indexed by the squares of the pieces with no two pieces
+ * on one square, and the file is mapped in segments so a table may hold
+ * more positions than a single buffer
+ */
+public class Tablebase {
+
+	public static final int DRAW = 0;
+	public static final int MISSING = Integer.MIN_VALUE;	// probe of a position not in the table
+	public static final int DECIDED = 127;	// the game was already over, never the result of a turn
+	public static final int MAX_DISTANCE = DECIDED - 1;
+
+	private static final int MAGIC = 0x46544232;	// "FTB2"
+	private static final int CHUNK = 1 << 12;		// positions a thread takes at a time
+	private static final int SEGMENT_BITS = 30;		// bytes mapped by one buffer
+	private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+	private long terrainHash;
+	private int[] types;		// type of each piece, player A's first
+	private int[] players;		// player of each piece
+	private String material;
+	private int[] squares;		// squares a piece may stand on
+	private int[] squareIndex;	// index in squares of each board square, -1 if none
+	private long positions;
+	private int headerSize;
+	private MappedByteBuffer[] data;	// one byte per position, SEGMENT_BITS of the index per buffer
+
+
+
+	/**
+	 * @param terrainHash
+	 * @param types		- type of each piece, sorted by player then type
+	 * @param players	- player of each piece
+	 * @param squares	- squares a piece may stand on
+	 * @param dim		- dimension of the board
+	 */
+	private Tablebase(long terrainHash, int[] types, int[] players, int[] squares, int dim) {
+		this.terrainHash = terrainHash;
+		this.types = types;
+		this.players = players;
+		this.material = material(types, players);
+		this.squares = squares;
+		this.squareIndex = new int[dim * dim];
+		Arrays.fill(squareIndex, -1);
+		for (int i = 0; i < squares.length; i++) {
+			squareIndex[squares[i]] = i;
+		}
+		long count = 2;
+		for (int i = 0; i < types.length; i++) {
+			int free = Math.max(0, squares.length - i);	// squares left by the pieces before
+			if (free > 0 && count > Long.MAX_VALUE / free) {
+				throw new IllegalArgumentException("too many positions for one table: " + material);
+			}
+			count *= free;
+		}
+		this.positions = count;
+		this.headerSize = 4 * 4 + 8 + 4 * (2 * types.length + squares.length);
+	}
+
+
+
+	/**
+	 * @param board			- terrain and castles to solve on, pieces and side to move are ignored
+	 * @param piecesA		- types of player A's pieces, at least one royal
+	 * @param piecesB		- types of player B's pieces, at least one royal
+	 * @param directory		- directory the table files are kept in
+	 * @param threads		- threads generating at once
+	 * @return the table of the material, read from its file if it was
+	 * 			generated before, else generated along with any table of
+	 * 			less material it needs
+	 */
+	public static Tablebase generate(Board board, int[] piecesA, int[] piecesB, File directory, int threads)
+			throws IOException {
+		int n = piecesA.length + piecesB.length;
+		int[] types = new int[n];
+		int[] players = new int[n];
+		sortMaterial(piecesA, piecesB, types, players);
+		return new Generator(board, directory, threads).table(types, players);
+	}
+
+
+
+	/**
+	 * @param file - table file written by generate
+	 * @return the table, mapped read only
+	 */
+	public static Tablebase open(File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("not a table file: " + file);
+			}
+			int dim = in.readInt();
+			int n = in.readInt();
+			int count = in.readInt();
+			long terrainHash = in.readLong();
+			int[] types = new int[n];
+			int[] players = new int[n];
+			for (int i = 0; i < n; i++) {
+				types[i] = in.readInt();
+				players[i] = in.readInt();
+			}
+			int[] squares = new int[count];
+			for (int i = 0; i < count; i++) {
+				squares[i] = in.readInt();
+			}
+
+			Tablebase table = new Tablebase(terrainHash, types, players, squares, dim);
+			if (in.length() != table.headerSize + table.positions) {
+				throw new IOException("truncated table file: " + file);
+			}
+			table.data = map(in.getChannel(), FileChannel.MapMode.READ_ONLY, table.headerSize, table.positions);
+			return table;
+		} finally {
+			in.close();
+		}
+	}
+
+
+
+	/**
+	 * @param channel
+	 * @param mode
+	 * @param offset	- first byte of the file to map
+	 * @param size		- bytes to map
+	 * @return buffers of 1 << SEGMENT_BITS bytes each, the last one
+	 * 			shorter, mapping size bytes from offset on
+	 */
+	private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long offset, long size)
+			throws IOException {
+		MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS)];
+		for (int i = 0; i < segments.length; i++) {
+			long start = (long) i << SEGMENT_BITS;
+			segments[i] = channel.map(mode, offset + start, Math.min(size - start, SEGMENT_MASK + 1));
+		}
+		return segments;
+	}
+
+
+
+	/**
+	 * @param directory		- directory the table files are kept in
+	 * @param terrainHash	- key of the terrain, see Board.getTerrainHash
+	 * @return every table of the terrain found in directory, none if
+	 * 			the directory does not exist
+	 */
+	public static Tablebase[] openAll(File directory, long terrainHash) throws IOException {
+		File[] files = directory.listFiles();
+		ArrayList<Tablebase> found = new ArrayList<Tablebase>();
+		String prefix = Long.toHexString(terrainHash) + "-";
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				String name = files[i].getName();
+				if (name.startsWith(prefix) && name.endsWith(".tb")) {
+					found.add(open(files[i]));
+				}
+			}
+		}
+		return found.toArray(new Tablebase[found.size()]);
+	}
+
+
+
+	/**
+	 * @param directory
+	 * @param terrainHash
+	 * @param material
+	 * @return the file a table is kept in
+	 */
+	private static File file(File directory, long terrainHash, String material) {
+		return new File(directory, Long.toHexString(terrainHash) + "-" + material + ".tb");
+	}
+
+
+
+	/**
+	 * @param types
+	 * @param players
+	 * @return name of a material, such as "A04-B0" for a King and a
+	 * 			Sergeant against a King
+	 */
+	private static String material(int[] types, int[] players) {
+		StringBuilder a = new StringBuilder("A");
+		StringBuilder b = new StringBuilder("-B");
+		for (int i = 0; i < types.length; i++) {
+			(players[i] == Data.PLAYER_A ? a : b).append(types[i]);
+		}
+		return a.append(b).toString();
+	}
+
+
+
+	/**
+	 * @param types
+	 * @param players
+	 * @return key of a material, the count of each type of each player
+	 * 			in four bits, the same for any order of the pieces
+	 */
+	private static long materialKey(int[] types, int[] players) {
+		long key = 0;
+		for (int i = 0; i < types.length; i++) {
+			key += 1L << 4 * ((players[i] - Data.PLAYER_A) * Data.PIECE_TYPES + types[i]);
+		}
+		return key;
+	}
+
+
+
+	/**
+	 * @param board
+	 * @return key of the material on board, as materialKey
+	 */
+	private static long materialKey(Board board) {
+		long key = 0;
+		for (int i = 0; i < board.getPiecesCount(); i++) {
+			Piece p = board.getPiece(i);
+			key += 1L << 4 * ((p.getPlayer() - Data.PLAYER_A) * Data.PIECE_TYPES + p.getType());
+		}
+		return key;
+	}
+
+
+
+	/**
+	 * @param piecesA
+	 * @param piecesB
+	 * @param types		- filled with the types, player A's first, each player's sorted
+	 * @param players	- filled with the player of each piece
+	 */
+	private static void sortMaterial(int[] piecesA, int[] piecesB, int[] types, int[] players) {
+		int[] a = piecesA.clone();
+		int[] b = piecesB.clone();
+		Arrays.sort(a);
+		Arrays.sort(b);
+		for (int i = 0; i < a.length; i++) {
+			types[i] = a[i];
+			players[i] = Data.PLAYER_A;
+		}
+		for (int i = 0; i < b.length; i++) {
+			types[a.length + i] = b[i];
+			players[a.length + i] = Data.PLAYER_B;
+		}
+	}
+
+
+
+	/**
+	 * @param board
+	 * @return the value of the position on board, MISSING if its terrain
+	 * 			or material differ from the table's or a piece has moved
+	 * 			this turn
+	 */
+	public int probe(Board board) {
+		if (board.getPiecesCount() != types.length || board.getTerrainHash() != terrainHash) {
+			return MISSING;
+		}
+		for (int i = 0; i < types.length; i++) {
+			if (board.getPiece(i).getMoveCount() > 0) {
+				return MISSING;
+			}
+		}
+		long index = index(board, board.getSideToMove());
+		return index < 0 ? MISSING : get(index);
+	}
+
+
+
+	/**
+	 * @param board	- position with as many pieces as the table
+	 * @param side	- player to move in the position
+	 * @return index of the position on board, -1 if it is not in the table,
+	 * 			whether pieces have moved is ignored
+	 *
+	 * piece i of the table takes the digit of its square among the
+	 * squares the pieces before it left free, piece 0 most significant,
+	 * and of pieces of one type and player the one on the lowest square
+	 * comes first, so each position has a single index
+	 */
+	private long index(Board board, int side) {
+		int n = types.length;
+		long index = 0;
+		int taken = 0;	// bit per piece of the board already matched
+
+		for (int i = 0; i < n; i++) {
+			int slot = -1;
+			int rank = Integer.MAX_VALUE;
+			for (int j = 0; j < n; j++) {
+				Piece p = board.getPiece(j);
+				if ((taken & (1 << j)) == 0 && p.getType() == types[i] && p.getPlayer() == players[i]
+						&& squareIndex[p.getId()] < rank) {
+					slot = j;
+					rank = squareIndex[p.getId()];
+				}
+			}
+			if (slot < 0 || rank < 0) {
+				return -1;
+			}
+			int below = 0;	// squares taken by the pieces before
+			for (int j = 0; j < n; j++) {
+				if ((taken & (1 << j)) != 0 && squareIndex[board.getPiece(j).getId()] < rank) {
+					below++;
+				}
+			}
+			taken |= 1 << slot;
+			index = index * (squares.length - i) + rank - below;
+		}
+		return 2 * index + (side == Data.PLAYER_A ? 0 : 1);
+	}
+
+
+
+	/**
+	 * @param index
+	 * @return value stored for the position
+	 */
+	private int get(long index) {
+		return data[(int) (index >>> SEGMENT_BITS)].get((int) (index & SEGMENT_MASK));
+	}
+
+
+
+	/**
+	 * @param index
+	 * @param value
+	 */
+	private void put(long index, int value) {
+		data[(int) (index >>> SEGMENT_BITS)].put((int) (index & SEGMENT_MASK), (byte) value);
+	}
+
+
+
+	/**
+	 * @return number of positions in the table, each order of pieces of
+	 * 			one type and player counted, though only one is used
+	 */
+	public long getPositions() {
+		return positions;
+	}
+
+
+
+	/**
+	 * @return name of the material, such as "A04-B0"
+	 */
+	public String getMaterial() {
+		return material;
+	}
+
+
+
+	/**
+	 * @return key of the terrain the table was solved on
+	 */
+	public long getTerrainHash() {
+		return terrainHash;
+	}
+
+
+
+	/**
+	 * @param value - value of a position
+	 * @return readable form of value, such as "win in 3"
+	 */
+	public static String toString(int value) {
+		if (value == MISSING) {
+			return "missing";
+		} else if (value == DRAW) {
+			return "draw";
+		} else if (value == DECIDED || value == -DECIDED) {
+			return value > 0 ? "won" : "lost";
+		}
+		return (value > 0 ? "win in " : "loss in ") + Math.abs(value);
+	}
+
+
+
+	/**
+	 * solves tables on one terrain, each table after the tables of less
+	 * material reached from it by a capture
+	 *
+	 * a first pass expands the turns of every position once. it marks
+	 * positions won within the turn, or won through a capture into a
+	 * solved table, and counts the distinct positions of the same
+	 * material the turns end in. pass k then works back from the
+	 * positions just decided: every turn ending in a position lost in
+	 * k - 1 wins in k, and every turn ending in a position won in k
+	 * takes one from the count of its start, which is lost once its
+	 * count runs out and no capture escapes. the turns into a position
+	 * are found by taking back moves of the player who just moved, one
+	 * piece at a time. the positions still undecided when no pass can
+	 * decide more are draws
+	 */
+	private static class Generator {
+
+		private static final int COUNT_BITS = 24;
+		private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;	// turns into undecided positions left
+		private static final int LONGEST_MASK = 0x7f;	// above the count, the longest loss through a capture
+		private static final int ESCAPE = 1 << 31;		// a capture reaches a draw, so it is never lost
+		private static final int LOCKS = 1 << 10;
+
+		private Board board;
+		private File directory;
+		private int threads;
+		private int[] squares;
+		private int[] squareIndex;
+		private HashMap<String, Tablebase> tables = new HashMap<String, Tablebase>();
+		private HashMap<Long, Tablebase> tablesByKey = new HashMap<Long, Tablebase>();
+		private int[][][] sources = new int[2 * Data.PIECE_TYPES][][];	// see sources()
+		private MappedByteBuffer[] work;	// state of each position of the table being solved
+		private Object[] locks = new Object[LOCKS];
+
+
+
+		/**
+		 * @param board
+		 * @param directory
+		 * @param threads
+		 */
+		Generator(Board board, File directory, int threads) {
+			this.board = new Board(board);
+			this.board.clear();
+			this.directory = directory;
+			this.threads = Math.max(1, threads);
+
+			int dim = board.getDim();
+			int[] free = new int[dim * dim];
+			int count = 0;
+			for (int i = 0; i < dim * dim; i++) {
+				if (board.getTerrain(i) != Data.TERRAIN_MOUNTAIN || board.isCastle(i)) {
+					free[count++] = i;	// castles are stored as mountains but may be entered
+				}
+			}
+			this.squares = Arrays.copyOf(free, count);
+			this.squareIndex = new int[dim * dim];
+			Arrays.fill(squareIndex, -1);
+			for (int i = 0; i < count; i++) {
+				squareIndex[squares[i]] = i;
+			}
+			for (int i = 0; i < LOCKS; i++) {
+				locks[i] = new Object();
+			}
+		}
+
+
+
+		/**
+		 * @param types
+		 * @param players
+		 * @return the table of the material, opened or generated
+		 */
+		Tablebase table(int[] types, int[] players) throws IOException {
+			String material = material(types, players);
+			Tablebase table = tables.get(material);
+			if (table != null) {
+				return table;
+			}
+			if (!hasRoyal(types, players, Data.PLAYER_A) || !hasRoyal(types, players, Data.PLAYER_B)) {
+				throw new IllegalArgumentException("each player needs a royal piece: " + material);
+			}
+
+			// tables reached by taking one piece, the game ends when the last royal is taken
+			for (int i = 0; i < types.length; i++) {
+				int[] lessTypes = remove(types, i);
+				int[] lessPlayers = remove(players, i);
+				if (hasRoyal(lessTypes, lessPlayers, players[i])) {
+					table(lessTypes, lessPlayers);
+				}
+			}
+
+			File file = file(directory, board.getTerrainHash(), material);
+			if (file.exists()) {
+				table = open(file);
+			} else {
+				table = solve(types, players, file);
+			}
+			tables.put(material, table);
+			tablesByKey.put(materialKey(types, players), table);
+			return table;
+		}
+
+
+
+		/**
+		 * @param types
+		 * @param players
+		 * @param file		- file to write the table to
+		 * @return the solved table, mapped read only
+		 */
+		private Tablebase solve(int[] types, int[] players, File file) throws IOException {
+			directory.mkdirs();
+			Tablebase table = new Tablebase(board.getTerrainHash(), types, players, squares, board.getDim());
+			for (int i = 0; i < types.length; i++) {
+				sources(types[i], players[i]);	// filled before the workers read them
+			}
+
+			File partial = new File(file.getPath() + ".part");
+			File state = new File(file.getPath() + ".work");
+			RandomAccessFile out = new RandomAccessFile(partial, "rw");
+			RandomAccessFile counts = new RandomAccessFile(state, "rw");
+			try {
+				out.setLength(0);
+				out.writeInt(MAGIC);
+				out.writeInt(board.getDim());
+				out.writeInt(types.length);
+				out.writeInt(squares.length);
+				out.writeLong(table.terrainHash);
+				for (int i = 0; i < types.length; i++) {
+					out.writeInt(types[i]);
+					out.writeInt(players[i]);
+				}
+				for (int i = 0; i < squares.length; i++) {
+					out.writeInt(squares[i]);
+				}
+				out.setLength(table.headerSize + table.positions);
+				table.data = map(out.getChannel(), FileChannel.MapMode.READ_WRITE, table.headerSize, table.positions);
+				counts.setLength(4 * table.positions);
+				work = map(counts.getChannel(), FileChannel.MapMode.READ_WRITE, 0, 4 * table.positions);
+
+				// a value decided in a pass is read by the next pass to need it
+				int deepest = run(table, Worker.EXPAND, 0);
+				for (int k = 1; k <= MAX_DISTANCE && k <= deepest + 1; k++) {
+					if (k > 1) {
+						deepest = Math.max(deepest, run(table, Worker.WIN, k));
+					}
+					deepest = Math.max(deepest, run(table, Worker.LOSS, k));
+				}
+				for (int i = 0; i < table.data.length; i++) {
+					table.data[i].force();
+				}
+			} finally {
+				work = null;
+				out.close();
+				counts.close();
+				state.delete();
+			}
+			if (!partial.renameTo(file)) {
+				throw new IOException("could not write " + file);
+			}
+			return open(file);
+		}
+
+
+
+		/**
+		 * @param table
+		 * @param phase	- one of the Worker phases
+		 * @param pass
+		 * @return the largest distance the phase gave a position, 0 if none
+		 */
+		private int run(Tablebase table, int phase, int pass) throws IOException {
+			AtomicLong next = new AtomicLong();
+			ArrayList<Worker> workers = new ArrayList<Worker>(threads);
+			for (int i = 0; i < threads; i++) {
+				workers.add(new Worker(this, table, phase, pass, next));
+			}
+			if (threads == 1) {
+				return workers.get(0).call();
+			}
+
+			ExecutorService pool = Executors.newFixedThreadPool(threads);
+			try {
+				int deepest = 0;
+				for (Future<Integer> result : pool.invokeAll(workers)) {
+					deepest = Math.max(deepest, result.get());
+				}
+				return deepest;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("generation interrupted");
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			} finally {
+				pool.shutdown();
+			}
+		}
+
+
+
+		/**
+		 * @param key - material key of a table already solved
+		 * @return the table
+		 */
+		Tablebase solved(long key) {
+			return tablesByKey.get(key);
+		}
+
+
+
+		/**
+		 * @param type
+		 * @param player
+		 * @return for the index of each square in squares, the squares a
+		 * 			piece of type and player could move to it from on the
+		 * 			empty board, other pieces only ever block a move
+		 */
+		int[][] sources(int type, int player) {
+			int key = (player - Data.PLAYER_A) * Data.PIECE_TYPES + type;
+			if (sources[key] != null) {
+				return sources[key];
+			}
+			Board empty = new Board(board);
+			int[][] reach = new int[squares.length][];
+			int[] count = new int[squares.length];
+			for (int i = 0; i < squares.length; i++) {
+				empty.clear();
+				Piece p = Piece.create(type, squares[i], player, empty);
+				empty.refreshAttack();
+				reach[i] = new int[p.getReachableCount()];
+				for (int j = 0; j < reach[i].length; j++) {
+					reach[i][j] = squareIndex[p.getReachable(j)];
+					if (reach[i][j] >= 0) {
+						count[reach[i][j]]++;
+					}
+				}
+			}
+
+			int[][] from = new int[squares.length][];
+			for (int i = 0; i < squares.length; i++) {
+				from[i] = new int[count[i]];
+				count[i] = 0;
+			}
+			for (int i = 0; i < squares.length; i++) {
+				for (int j = 0; j < reach[i].length; j++) {
+					int to = reach[i][j];
+					if (to >= 0) {
+						from[to][count[to]++] = squares[i];
+					}
+				}
+			}
+			sources[key] = from;
+			return from;
+		}
+
+
+
+		/**
+		 * @param index - position of the table being solved
+		 * @return its state, as set by the first pass
+		 */
+		int getWork(long index) {
+			long offset = index << 2;
+			return work[(int) (offset >>> SEGMENT_BITS)].getInt((int) (offset & SEGMENT_MASK));
+		}
+
+
+
+		/**
+		 * @param index
+		 * @param state
+		 */
+		void putWork(long index, int state) {
+			long offset = index << 2;
+			work[(int) (offset >>> SEGMENT_BITS)].putInt((int) (offset & SEGMENT_MASK), state);
+		}
+
+
+
+		/**
+		 * @param index
+		 * @return the lock guarding the count of the position
+		 */
+		Object lock(long index) {
+			return locks[(int) ((index >>> 1) & (LOCKS - 1))];
+		}
+
+
+
+		/**
+		 * @param types
+		 * @param players
+		 * @param player
+		 * @return true if player has a royal piece in the material
+		 */
+		private static boolean hasRoyal(int[] types, int[] players, int player) {
+			for (int i = 0; i < types.length; i++) {
+				if (players[i] == player && (types[i] == Data.PIECE_KING
+						|| types[i] == Data.PIECE_DUKE || types[i] == Data.PIECE_PRINCE)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+
+
+		/**
+		 * @param values
+		 * @param i
+		 * @return values without its i-th element
+		 */
+		private static int[] remove(int[] values, int i) {
+			int[] less = new int[values.length - 1];
+			System.arraycopy(values, 0, less, 0, i);
+			System.arraycopy(values, i + 1, less, i, less.length - i);
+			return less;
+		}
+	}
+
+
+
+	/**
+	 * carries out one phase of one pass, taking chunks of positions until
+	 * none are left, on a private board
+	 */
+	private static class Worker implements Callable<Integer> {
+
+		static final int EXPAND = 0;	// values and counts from the turns of every position
+		static final int WIN = 1;		// positions with a turn into a position lost last pass
+		static final int LOSS = 2;		// positions whose last undecided turn ends in a win of the pass
+
+		private Generator generator;
+		private Tablebase table;
+		private int phase;
+		private int pass;
+		private AtomicLong next;
+		private Board board;
+		private int side;
+		private int[][] moves;			// one move buffer per piece moved in the turn
+		private int[] digits;			// of the index being placed
+		private int[] used;				// squares taken so far while placing, sorted
+		private HashSet<Long> seen = new HashSet<Long>();	// partial turns already tried
+		private HashSet<Long> found = new HashSet<Long>();	// positions a turn ends in or starts from
+		private int deepest;
+
+		// what the turns of the position being expanded reach
+		private boolean won;
+		private int bestWin;			// through a capture, DECIDED if none
+		private int longest;			// loss through a capture
+		private boolean escape;
+
+		private long cachedKey = -1;	// material of the last table reached by a capture
+		private Tablebase cached;
+
+		Worker(Generator generator, Tablebase table, int phase, int pass, AtomicLong next) {
+			this.generator = generator;
+			this.table = table;
+			this.phase = phase;
+			this.pass = pass;
+			this.next = next;
+			this.board = new Board(generator.board);
+			int n = table.types.length;
+			for (int i = 0; i < n; i++) {
+				Piece.create(table.types[i], table.squares[i], table.players[i], board);
+			}
+			this.moves = new int[n + 1][MoveGenerator.capacity(board)];	// sized for the table's pieces
+			this.digits = new int[n];
+			this.used = new int[n];
+		}
+
+		@Override
+		public Integer call() {
+			long start;
+			while ((start = next.getAndAdd(CHUNK)) < table.positions) {
+				long end = Math.min(start + CHUNK, table.positions);
+				for (long index = start; index < end; index++) {
+					if (phase == EXPAND) {
+						expand(index);
+					} else if (phase == WIN && table.get(index) == 1 - pass && place(index)) {
+						predecessors();
+						for (Long before : found) {
+							int value = table.get(before);
+							if (value == DRAW || value > pass && value < DECIDED) {
+								table.put(before, pass);	// the same value from any thread
+								deepest = pass;
+							}
+						}
+					} else if (phase == LOSS && table.get(index) == pass && place(index)) {
+						predecessors();
+						for (Long before : found) {
+							lose(before);
+						}
+					}
+				}
+			}
+			return deepest;
+		}
+
+		/**
+		 * @param index
+		 *
+		 * decides the position if it is over, won within the turn or won
+		 * through a capture, and sets its state for the later passes
+		 */
+		private void expand(long index) {
+			if (!place(index)) {
+				return; // another order of like pieces, never probed
+			}
+			int winner = board.getWinner();
+			if (winner != Data.PLAYER_NONE) {
+				table.put(index, winner == side ? DECIDED : -DECIDED);
+				return;
+			}
+
+			won = false;
+			bestWin = DECIDED;
+			longest = 0;
+			escape = false;
+			seen.clear();
+			found.clear();
+			turn(0);
+
+			int value = won ? 1 : bestWin < DECIDED ? bestWin : DRAW;	// a win through a capture may be beaten later
+			if (found.size() > Generator.COUNT_MASK) {
+				throw new IllegalStateException("too many turns from one position in " + table.material);
+			}
+			generator.putWork(index, found.size() | longest << Generator.COUNT_BITS | (escape ? Generator.ESCAPE : 0));
+			if (value != DRAW) {
+				table.put(index, value);
+				deepest = Math.max(deepest, value);
+			}
+		}
+
+		/**
+		 * @param depth - pieces moved so far in the turn
+		 *
+		 * tries ending the turn now and every way it could go on
+		 */
+		private void turn(int depth) {
+			board.makeMove(Move.END_TURN);
+			if (board.getPiecesCount() == table.types.length) {
+				found.add(table.index(board, board.getSideToMove()));
+			} else {
+				reached(captured().probe(board));
+			}
+			board.unmakeMove();
+
+			int[] buffer = moves[depth];
+			int n = MoveGenerator.generate(board, side, buffer, false);
+			for (int i = 0; i < n && !won; i++) {
+				board.makeMove(buffer[i]);
+				if (board.getWinner() == side) {
+					won = true;
+				} else if (seen.add(board.getHash())) {
+					turn(depth + 1);
+				}
+				board.unmakeMove();
+			}
+		}
+
+		/**
+		 * @param value - value for the other player of a position a turn
+		 * 				  ends in after a capture
+		 */
+		private void reached(int value) {
+			if (value < 0 && value > -MAX_DISTANCE) {
+				bestWin = Math.min(bestWin, 1 - value);
+			} else if (value > 0 && value < DECIDED) {
+				longest = Math.max(longest, value);
+			} else {
+				escape = true;	// a draw, or a win too far to store
+			}
+		}
+
+		/**
+		 * @return the table of the material on the board, after a capture
+		 */
+		private Tablebase captured() {
+			long key = materialKey(board);
+			if (key != cachedKey) {
+				cachedKey = key;
+				cached = generator.solved(key);
+			}
+			return cached;
+		}
+
+		/**
+		 * @param index - position one of whose turns ends in a position won
+		 * 				  for the other player in pass turns
+		 *
+		 * counts the turn off, the position is lost once none is left
+		 * and no capture escapes
+		 */
+		private void lose(long index) {
+			synchronized (generator.lock(index)) {
+				if (table.get(index) != DRAW) {
+					return;
+				}
+				int state = generator.getWork(index);
+				if ((state & Generator.COUNT_MASK) == 0) {
+					throw new IllegalStateException("a turn taken back was never counted in " + table.material);
+				}
+				generator.putWork(index, --state);
+				if ((state & Generator.COUNT_MASK) == 0 && (state & Generator.ESCAPE) == 0) {
+					int value = Math.max(pass, (state >>> Generator.COUNT_BITS) & Generator.LONGEST_MASK);
+					table.put(index, -value);	// read in pass value + 1 if a capture loses slower
+					deepest = Math.max(deepest, value);
+				}
+			}
+		}
+
+		/**
+		 * fills found with the positions of the same material whose turn
+		 * could have ended in the position on the board
+		 */
+		private void predecessors() {
+			side = Data.PLAYER_A + Data.PLAYER_B - side;	// the player who just moved
+			seen.clear();
+			found.clear();
+			seen.add(board.getHash());
+			unturn();
+		}
+
+		/**
+		 * adds the position before the moves taken back so far, then takes
+		 * back each piece of the player who moved that has not been taken
+		 * back yet, wherever the move could have come from
+		 */
+		private void unturn() {
+			found.add(table.index(board, side));
+
+			for (int i = 0; i < board.getPiecesCount(); i++) {
+				Piece p = board.getPiece(i);
+				if (p.getPlayer() != side || p.getMoveCount() > 0) {
+					continue;
+				}
+				int to = p.getId();
+				int[] from = generator.sources(p.getType(), side)[table.squareIndex[to]];
+				for (int j = 0; j < from.length; j++) {
+					if (board.isOccupied(from[j])) {
+						continue;
+					}
+					board.makeMove(Move.encode(to, from[j], 0));	// marks p as taken back
+					board.refreshAttack();
+					if (Bitboard.test(p.getReachableMask(), to) && seen.add(board.getHash())) {
+						unturn();
+					}
+					board.unmakeMove();
+				}
+			}
+		}
+
+		/**
+		 * @param index
+		 * @return false if the position is another order of pieces of one
+		 * 			type and player than the one indexed, else true with the
+		 * 			position set up on the board
+		 */
+		private boolean place(long index) {
+			int n = table.types.length;
+			side = (index & 1) == 0 ? Data.PLAYER_A : Data.PLAYER_B;
+			long rest = index >>> 1;
+			for (int i = n - 1; i >= 0; i--) {
+				digits[i] = (int) (rest % (table.squares.length - i));
+				rest /= table.squares.length - i;
+			}
+
+			board.clear();
+			for (int i = 0; i < n; i++) {
+				int rank = digits[i];
+				int at = 0;
+				while (at < i && used[at] <= rank) {
+					rank++;	// skip the squares taken before, lowest first
+					at++;
+				}
+				if (i > 0 && table.types[i] == table.types[i - 1] && table.players[i] == table.players[i - 1]
+						&& rank < lastRank(i - 1)) {
+					return false;
+				}
+				System.arraycopy(used, at, used, at + 1, i - at);
+				used[at] = rank;
+				Piece.create(table.types[i], table.squares[rank], table.players[i], board);
+			}
+			board.setSideToMove(side);
+			return true;
+		}
+
+		/**
+		 * @param i - piece already placed
+		 * @return index in squares of the square of piece i
+		 */
+		private int lastRank(int i) {
+			return table.squareIndex[board.getPiece(i).getId()];
+		}
+	}
+}
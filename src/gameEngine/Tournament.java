@@ -0,0 +1,375 @@
+package gameEngine;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * plays a match between two AI configurations on every core, and
+ * reports the Elo difference between them
+ *
+ * games come in pairs on the same map with colors swapped, and the maps
+ * are taken in turn, the match stops early once a sequential probability
+ * ratio test decides whether the first AI is elo0 or elo1 stronger
+ *
+ * both games of pair i are played from seed + i, the first AI playing
+ * A in one and B in the other, so a seed favoring one color favors
+ * both AIs once
+ */
+public class Tournament {
+
+	private static final double Z_95 = 1.959964;	// normal quantile of a 95% interval
+
+	private AIFactory first;
+	private AIFactory second;
+	private ArrayList<int[]> maps;
+	private int threads;
+	private int maxTurns = GameRunner.DEFAULT_MAX_TURNS;
+	private long seed = System.nanoTime();
+
+	private double elo0 = 0;		// hypothesis the test rejects
+	private double elo1 = 5;		// hypothesis the test accepts
+	private double alpha = 0.05;	// chance of accepting elo1 when elo0 holds
+	private double beta = 0.05;		// chance of accepting elo0 when elo1 holds
+
+	private int wins;			// counted for the first AI
+	private int losses;
+	private int draws;
+	private long turns;
+	private int decision;		// 1 if elo1 was accepted, -1 if elo0 was, 0 while open
+	private AtomicBoolean stopped = new AtomicBoolean(false);	// ends the games still playing or queued
+
+
+
+	/**
+	 * @param first		- AI whose strength is measured
+	 * @param second	- AI it is measured against
+	 * @param maps		- terrain of each map played on
+	 * @param threads	- games played at the same time
+	 */
+	public Tournament(AIFactory first, AIFactory second, ArrayList<int[]> maps, int threads) {
+		this.first = first;
+		this.second = second;
+		this.maps = maps;
+		this.threads = Math.max(1, threads);
+	}
+
+
+
+	/**
+	 * @param maxTurns - turns after which a game is called a draw
+	 */
+	public void setMaxTurns(int maxTurns) {
+		this.maxTurns = maxTurns;
+	}
+
+
+
+	/**
+	 * @param seed - seed of the first pair of games
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+
+
+	public long getSeed() {
+		return seed;
+	}
+
+
+
+	/**
+	 * @param elo0	- Elo difference of the null hypothesis
+	 * @param elo1	- Elo difference of the alternative hypothesis
+	 * @param alpha	- false positive rate
+	 * @param beta	- false negative rate
+	 */
+	public void setSPRT(double elo0, double elo1, double alpha, double beta) {
+		this.elo0 = elo0;
+		this.elo1 = elo1;
+		this.alpha = alpha;
+		this.beta = beta;
+	}
+
+
+
+	/**
+	 * @param games		- most games to play, rounded up to whole pairs
+	 * @param interval	- games between two reports, rounded up to whole
+	 * 					  pairs, 0 for the final report only
+	 * @param out		- stream to report to
+	 * @return 1 if the test accepted elo1, -1 if it accepted elo0, 0 if undecided
+	 *
+	 * the games are queued at once and counted a whole pair at a time in
+	 * the order they were queued, so the test sees the same sequence of
+	 * results however the games are scheduled, and so quick decisive games
+	 * are not counted ahead of long ones. the queued games are skipped
+	 * after a decision, and the games still playing end at their next
+	 * move, as they do when the run is aborted
+	 */
+	public int run(int games, int interval, PrintStream out) throws InterruptedException {
+		stopped = new AtomicBoolean(decision != 0);
+		ExecutorService pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "tournament game");
+				t.setDaemon(true);	// an aborted match never keeps the program from exiting
+				return t;
+			}
+		});
+		int pairs = (games + 1) / 2;
+		ArrayList<Future<int[]>> queued = new ArrayList<Future<int[]>>(2 * pairs);
+
+		for (int i = 0; i < pairs; i++) {
+			int[] terrain = maps.get(i % maps.size());
+			queued.add(pool.submit(new Match(terrain, true, seed + i)));
+			queued.add(pool.submit(new Match(terrain, false, seed + i)));
+		}
+
+		int reported = 0;
+		try {
+			for (int i = 0; i < pairs && decision == 0; i++) {
+				int[] firstGame = queued.get(2 * i).get();
+				int[] secondGame = queued.get(2 * i + 1).get();
+				count(firstGame[0], firstGame[1]);
+				count(secondGame[0], secondGame[1]);
+
+				double llr = getLLR();
+				if (llr >= getUpperBound()) {
+					decision = 1;
+				} else if (llr <= getLowerBound()) {
+					decision = -1;
+				}
+				if (decision != 0) {
+					stopped.set(true);
+				}
+				if (interval > 0 && getGames() - reported >= interval) {
+					report(out);
+					reported = getGames();
+				}
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			stopped.set(true);	// the games still playing end at their next move
+			pool.shutdownNow();
+		}
+		if (getGames() != reported || reported == 0) {
+			report(out);
+		}
+		return decision;
+	}
+
+
+
+	/**
+	 * @param score	- 2 for a win of the first AI, 1 for a draw, 0 for a loss
+	 * @param length - turns the game lasted
+	 */
+	private void count(int score, int length) {
+		if (score == 2) {
+			wins++;
+		} else if (score == 1) {
+			draws++;
+		} else {
+			losses++;
+		}
+		turns += length;
+	}
+
+
+
+	/**
+	 * @param out
+	 *
+	 * prints the games played, the Elo estimate and the state of the test
+	 */
+	public void report(PrintStream out) {
+		int games = getGames();
+		if (games == 0) {
+			out.println("no games played");
+			return;
+		}
+		double[] interval = getEloInterval();
+		out.printf("games %d: +%d -%d =%d, %.1f turns/game, elo %.1f [%.1f, %.1f], llr %.2f [%.2f, %.2f]%s%n",
+				games, wins, losses, draws, (double) turns / games,
+				getElo(), interval[0], interval[1],
+				getLLR(), getLowerBound(), getUpperBound(),
+				decision > 0 ? " H1 accepted" : decision < 0 ? " H0 accepted" : "");
+	}
+
+
+
+	/**
+	 * @return mean score of the first AI per game, a draw scoring half
+	 */
+	public double getScore() {
+		int games = getGames();
+		return games == 0 ? 0.5 : (wins + 0.5 * draws) / games;
+	}
+
+
+
+	/**
+	 * @return variance of the score of one game
+	 */
+	private double getVariance() {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		double s = getScore();
+		return (wins * (1 - s) * (1 - s) + draws * (0.5 - s) * (0.5 - s) + losses * s * s) / games;
+	}
+
+
+
+	/**
+	 * @return Elo difference of the first AI over the second
+	 */
+	public double getElo() {
+		return toElo(getScore());
+	}
+
+
+
+	/**
+	 * @return lower and upper end of the 95% interval of the Elo difference
+	 */
+	public double[] getEloInterval() {
+		int games = getGames();
+		double s = getScore();
+		double margin = games == 0 ? 0.5 : Z_95 * Math.sqrt(getVariance() / games);
+		return new double[] { toElo(s - margin), toElo(s + margin) };
+	}
+
+
+
+	/**
+	 * @return log likelihood ratio of elo1 against elo0, in the normal
+	 * 			approximation of the game scores
+	 */
+	public double getLLR() {
+		int games = getGames();
+		if (games == 0) {
+			return 0;
+		}
+		// a one sided run has no spread, allow at least that of one decisive game
+		double variance = Math.max(getVariance(), 0.25 / games);
+		double s0 = toScore(elo0);
+		double s1 = toScore(elo1);
+		return games * (s1 - s0) * (2 * getScore() - s0 - s1) / (2 * variance);
+	}
+
+
+
+	/**
+	 * @return LLR at which elo0 is accepted
+	 */
+	public double getLowerBound() {
+		return Math.log(beta / (1 - alpha));
+	}
+
+
+
+	/**
+	 * @return LLR at which elo1 is accepted
+	 */
+	public double getUpperBound() {
+		return Math.log((1 - beta) / alpha);
+	}
+
+
+
+	/**
+	 * @param score - expected score, clamped into (0, 1)
+	 * @return the Elo difference expecting score
+	 */
+	public static double toElo(double score) {
+		score = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+		return 400 * Math.log10(score / (1 - score));
+	}
+
+
+
+	/**
+	 * @param elo
+	 * @return the score expected with an Elo difference of elo
+	 */
+	public static double toScore(double elo) {
+		return 1 / (1 + Math.pow(10, -elo / 400));
+	}
+
+
+
+	public int getGames() {
+		return wins + losses + draws;
+	}
+
+
+
+	public int getWins() {
+		return wins;
+	}
+
+
+
+	public int getLosses() {
+		return losses;
+	}
+
+
+
+	public int getDraws() {
+		return draws;
+	}
+
+
+
+	/**
+	 * one game of the match on a private Game
+	 */
+	private class Match implements Callable<int[]> {
+
+		private int[] terrain;
+		private boolean firstIsA;	// the first AI plays A, else B
+		private long seed;
+
+		Match(int[] terrain, boolean firstIsA, long seed) {
+			this.terrain = terrain;
+			this.firstIsA = firstIsA;
+			this.seed = seed;
+		}
+
+		/**
+		 * @return the first AI's score and the turns played,
+		 * 			null if the match was decided before the game started
+		 */
+		@Override
+		public int[] call() {
+			if (stopped.get()) {
+				return null;
+			}
+			AI a = firstIsA ? first.create() : second.create();
+			AI b = firstIsA ? second.create() : first.create();
+			GameRunner runner = new GameRunner(a, b, maxTurns, seed);
+			runner.setCancelFlag(stopped);
+			int winner = runner.play(terrain, Data.PLAYER_A);
+
+			int score = 1;
+			if (winner != Data.PLAYER_NONE) {
+				score = (winner == Data.PLAYER_A) == firstIsA ? 2 : 0;
+			}
+			return new int[] { score, runner.getTurns() };
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package gameEngine;
+
+import java.util.Arrays;
+
+
+/**
+ * fixed size table of search results keyed by position hash, shared
+ * by search threads without locking
+ *
+ * each entry is two longs, the key xor the data and the data itself,
+ * so an entry torn by two threads writing at once no longer matches
+ * its key and is treated as missing
+ *
+ * entries come in buckets of two, the first keeps the deepest result
+ * and the second always takes the latest one
+ */
+public class TranspositionTable {
+
+	public static final int BOUND_EXACT = 1;
+	public static final int BOUND_LOWER = 2;	// score is at least the stored score
+	public static final int BOUND_UPPER = 3;	// score is at most the stored score
+
+	public static final long MISSING = 0;		// probe result when the position is not stored
+
+	// data layout: move in bits 0-27, depth 28-33, bound 34-35, score 36-57
+	private static final int DEPTH_SHIFT = 28;
+	private static final int BOUND_SHIFT = 34;
+	private static final int SCORE_SHIFT = 36;
+	private static final long MOVE_MASK = (1L << DEPTH_SHIFT) - 1;
+	private static final int SCORE_OFFSET = 1 << 21;
+
+	private final long[] table;
+	private final int mask;			// bucket index mask
+
+
+
+	/**
+	 * @param megabytes - memory to use, rounded down to a power of two
+	 */
+	public TranspositionTable(int megabytes) {
+		long bytes = Math.max(1, megabytes) * (1L << 20);
+		int buckets = Integer.highestOneBit((int) Math.min(bytes / 32, 1 << 26));
+		table = new long[buckets * 4];
+		mask = buckets - 1;
+	}
+
+
+
+	/**
+	 * @param key
+	 * @return data stored for key, MISSING if there is none
+	 */
+	public long probe(long key) {
+		int i = index(key);
+		long data = table[i + 1];
+		if ((table[i] ^ data) == key && data != MISSING) {
+			return data;
+		}
+		data = table[i + 3];
+		if ((table[i + 2] ^ data) == key && data != MISSING) {
+			return data;
+		}
+		return MISSING;
+	}
+
+
+
+	/**
+	 * @param key
+	 * @param move	- best move found, Move.NONE if there is none
+	 * @param depth	- depth the score was searched to
+	 * @param bound	- one of BOUND_*
+	 * @param score	- score within +-Search.WIN
+	 */
+	public void store(long key, int move, int depth, int bound, int score) {
+		long data = (move & MOVE_MASK)
+				| ((long) depth << DEPTH_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| ((long) (score + SCORE_OFFSET) << SCORE_SHIFT);
+		int i = index(key);
+		long old = table[i + 1];
+		if ((table[i] ^ old) == key || depth >= depth(old)) {
+			table[i + 1] = data;
+			table[i] = key ^ data;
+		} else {
+			table[i + 3] = data;
+			table[i + 2] = key ^ data;
+		}
+	}
+
+
+
+	/**
+	 * clears all entries
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+
+
+	/**
+	 * @param key
+	 * @return index of the first long of key's bucket
+	 */
+	private int index(long key) {
+		return ((int) (key ^ (key >>> 32)) & mask) << 2;
+	}
+
+
+
+	/**
+	 * @param data
+	 * @return packed best move of an entry
+	 */
+	public static int move(long data) {
+		return (int) (data & MOVE_MASK);
+	}
+
+
+
+	/**
+	 * @param data
+	 * @return search depth of an entry
+	 */
+	public static int depth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & 63;
+	}
+
+
+
+	/**
+	 * @param data
+	 * @return bound type of an entry
+	 */
+	public static int bound(long data) {
+		return (int) (data >>> BOUND_SHIFT) & 3;
+	}
+
+
+
+	/**
+	 * @param data
+	 * @return score of an entry
+	 */
+	public static int score(long data) {
+		return (int) ((data >>> SCORE_SHIFT) & ((1L << 22) - 1)) - SCORE_OFFSET;
+	}
+}
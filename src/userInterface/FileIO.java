@@ -22,8 +22,18 @@ public class FileIO {
 	 * @return array of terrain data
 	 */
 	public int[] readTerrainFile(){
+		return readTerrainFile(Data.FILE_TERRAIN);
+	}
+	
+	
+	
+	/**
+	 * @param path - terrain file to read
+	 * @return array of terrain data
+	 */
+	public int[] readTerrainFile(String path){
 		try {
-			FileInputStream fstream = new FileInputStream(Data.FILE_TERRAIN);
+			FileInputStream fstream = new FileInputStream(path);
 			DataInputStream in = new DataInputStream(fstream);
 			BufferedReader br = new BufferedReader(new InputStreamReader(in));
 			String strLine = null;
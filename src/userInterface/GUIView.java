@@ -216,6 +216,18 @@ public class GUIView {
         itemFour.addActionListener(new MenuSelectListener(Data.STR_AI_GAME, controller));
         gameMenu.add(itemFour);
         
+        JMenuItem itemFive = new JMenuItem(Data.STR_SEARCH_AI_GAME);
+        itemFive.addActionListener(new MenuSelectListener(Data.STR_SEARCH_AI_GAME, controller));
+        gameMenu.add(itemFive);
+        
+        JMenuItem itemSix = new JMenuItem(Data.STR_MCTS_AI_GAME);
+        itemSix.addActionListener(new MenuSelectListener(Data.STR_MCTS_AI_GAME, controller));
+        gameMenu.add(itemSix);
+        
+        JMenuItem itemSeven = new JMenuItem(Data.STR_BEAM_AI_GAME);
+        itemSeven.addActionListener(new MenuSelectListener(Data.STR_BEAM_AI_GAME, controller));
+        gameMenu.add(itemSeven);
+        
         menuBar.add(gameMenu);
 	}
 	